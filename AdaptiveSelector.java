@@ -0,0 +1,110 @@
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks each question of an adaptive quiz as the previous one closes.
+ *
+ * The player's ability is a difficulty level between 0 and 1 that moves
+ * after every answer, Elo style: up when they do better than the question's
+ * difficulty predicted (a correct answer, more so when faster than the
+ * question's median time), down otherwise. The candidate pool is kept in a
+ * tree ordered by difficulty, so the next question, the one closest to a
+ * target drawn from a narrow band around the ability, is found in O(log n).
+ *
+ * One selector belongs to one session and is only called under its lock.
+ */
+public class AdaptiveSelector implements QuizSession.QuestionSelector {
+    private static final double START_ABILITY = 0.35;   // Start a little easier than average
+    private static final double MIN_ABILITY = 0.05;
+    private static final double MAX_ABILITY = 0.95;
+    private static final double STEP = 0.3;
+    private static final double BAND = 0.1;             // Width of the target band around the ability
+    private static final double SLOW_CORRECT_CREDIT = 0.75;
+
+    /**
+     * A pool question, keyed by its difficulty when the pool was built
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        final double difficulty;
+        final int order;
+        final Question question;
+
+        Candidate(double difficulty, int order, Question question) {
+            this.difficulty = difficulty;
+            this.order = order;
+            this.question = question;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int byDifficulty = Double.compare(difficulty, other.difficulty);
+            return byDifficulty != 0 ? byDifficulty : Integer.compare(order, other.order);
+        }
+    }
+
+    private final DifficultyModel model;
+    private final long timeLimitMs;
+    private final TreeSet<Candidate> pool = new TreeSet<>();
+    private double ability = START_ABILITY;
+
+    /**
+     * @param pool candidate questions; load their statistics with DifficultyModel.preload first
+     */
+    public AdaptiveSelector(DifficultyModel model, Collection<Question> pool, long timeLimitMs) {
+        this.model = model;
+        this.timeLimitMs = timeLimitMs;
+        int order = 0;
+        for (Question question : pool) {
+            this.pool.add(new Candidate(model.difficultyOf(question.getId()), order++, question));
+        }
+    }
+
+    @Override
+    public Question next(QuestionAttempt previous) {
+        if (previous != null) {
+            updateAbility(previous);
+        }
+        if (pool.isEmpty()) {
+            return null;
+        }
+
+        double target = ability + (ThreadLocalRandom.current().nextDouble() - 0.5) * BAND;
+        Candidate probe = new Candidate(target, Integer.MIN_VALUE, null);
+        Candidate above = pool.ceiling(probe);
+        Candidate below = pool.lower(probe);
+        Candidate chosen;
+        if (above == null) {
+            chosen = below;
+        } else if (below == null) {
+            chosen = above;
+        } else {
+            chosen = above.difficulty - target <= target - below.difficulty ? above : below;
+        }
+        pool.remove(chosen);
+        return chosen.question;
+    }
+
+    public double getAbility() {
+        return ability;
+    }
+
+    public int getRemainingCount() {
+        return pool.size();
+    }
+
+    private void updateAbility(QuestionAttempt previous) {
+        int questionId = previous.getQuestion().getId();
+        double expected = 1 - model.difficultyOf(questionId);
+
+        double outcome = 0;
+        if (previous.isCorrect()) {
+            DifficultyModel.Estimate estimate = model.getEstimate(questionId);
+            long median = estimate == null ? -1 : estimate.getMedianMillis();
+            long par = median > 0 ? median : timeLimitMs / 2;
+            long taken = previous.getTimeToAnswerMillis();
+            outcome = taken >= 0 && taken > par ? SLOW_CORRECT_CREDIT : 1;
+        }
+        ability = Math.max(MIN_ABILITY, Math.min(MAX_ABILITY, ability + STEP * (outcome - expected)));
+    }
+}
@@ -0,0 +1,414 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Write-behind store for finished quiz results in the {@code attempts} table.
+ *
+ * Recording a result only puts it on a queue; a single writer thread drains
+ * the queue and inserts whatever has accumulated as one JDBC batch in one
+ * transaction. When the database cannot be reached the batch is appended to
+ * a local file instead, and that file is replayed into the table once
+ * writes succeed again (at least once: a crash during replay may insert a
+ * replayed row twice). High scores combine the table, the fallback file and
+ * results still waiting in the queue.
+ */
+public class AttemptStore {
+    private static final Logger LOGGER = Logger.getLogger(AttemptStore.class.getName());
+
+    /** Category recorded for quizzes drawn from the whole bank */
+    public static final String ALL_CATEGORIES = "all";
+
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int BATCH_SIZE = 500;
+    private static final long FLUSH_INTERVAL_MS = 2_000;
+    private static final long RETRY_AFTER_FAILURE_MS = 30_000;
+    private static final long SHUTDOWN_FLUSH_MS = 5_000;
+
+    private static final String INSERT_SQL =
+        "INSERT INTO attempts (user_name, category, score, total, duration_ms, finished_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String HIGH_SCORE_SQL =
+        "SELECT MAX(score) AS high_score FROM attempts WHERE user_name = ? AND category = ?";
+
+    /**
+     * One finished quiz
+     */
+    public static final class Attempt {
+        private final String user;
+        private final String category;
+        private final int score;
+        private final int total;
+        private final long durationMs;
+        private final long finishedAt;
+
+        public Attempt(String user, String category, int score, int total, long durationMs, long finishedAt) {
+            this.user = clean(user);
+            this.category = clean(category);
+            this.score = score;
+            this.total = total;
+            this.durationMs = durationMs;
+            this.finishedAt = finishedAt;
+        }
+
+        public String getUser() {
+            return user;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        public long getFinishedAt() {
+            return finishedAt;
+        }
+
+        /**
+         * Tabs and line breaks would break the fallback file format
+         */
+        private static String clean(String value) {
+            return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+        }
+
+        String toLine() {
+            return user + '\t' + category + '\t' + score + '\t' + total + '\t' + durationMs + '\t' + finishedAt;
+        }
+
+        static Attempt fromLine(String line) {
+            String[] fields = line.split("\t");
+            if (fields.length != 6) {
+                throw new IllegalArgumentException("Malformed attempt line: " + line);
+            }
+            return new Attempt(fields[0], fields[1], Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+                Long.parseLong(fields[4]), Long.parseLong(fields[5]));
+        }
+    }
+
+    private final Path fallbackFile;
+    private final Path replayFile;
+    private final BlockingQueue<Attempt> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile long databaseDownUntil = 0;
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong fellBack = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+
+    /**
+     * @param fallbackFile append-only file used while the database is unavailable
+     */
+    public AttemptStore(Path fallbackFile) {
+        this.fallbackFile = fallbackFile;
+        this.replayFile = Paths.get(fallbackFile + ".replay");
+        this.writer = new Thread(this::run, "attempt-writer");
+        writer.setDaemon(true);
+        writer.start();
+        // The GUI exits through System.exit, which would otherwise drop the queue
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "attempt-writer-flush"));
+    }
+
+    /**
+     * Queues a result for writing; never blocks on the database
+     */
+    public void record(Attempt attempt) {
+        recorded.incrementAndGet();
+        if (!running || !queue.offer(attempt)) {
+            // Writer stopped or far behind: keep the result on disk rather than lose it
+            List<Attempt> single = new ArrayList<>(1);
+            single.add(attempt);
+            appendToFallback(single);
+        }
+    }
+
+    /**
+     * Best score of a user in a category, or 0 when there is none
+     */
+    public int getHighScore(String user, String category) {
+        String cleanUser = Attempt.clean(user);
+        String cleanCategory = Attempt.clean(category);
+        int best = 0;
+
+        if (System.currentTimeMillis() >= databaseDownUntil) {
+            try (Connection conn = DatabaseConnector.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(HIGH_SCORE_SQL)) {
+                stmt.setString(1, cleanUser);
+                stmt.setString(2, cleanCategory);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        best = rs.getInt("high_score");
+                    }
+                }
+            } catch (SQLException e) {
+                LOGGER.warning("Could not read high score from database: " + e.getMessage());
+            }
+        }
+
+        // Results that have not reached the table yet
+        synchronized (this) {
+            for (Path file : new Path[] {replayFile, fallbackFile}) {
+                for (Attempt attempt : readFile(file)) {
+                    if (attempt.user.equals(cleanUser) && attempt.category.equals(cleanCategory)) {
+                        best = Math.max(best, attempt.score);
+                    }
+                }
+            }
+        }
+        for (Attempt attempt : queue) {
+            if (attempt.user.equals(cleanUser) && attempt.category.equals(cleanCategory)) {
+                best = Math.max(best, attempt.score);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Stops the writer after it has written (or saved to the fallback file) everything queued
+     */
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(SHUTDOWN_FLUSH_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything the writer did not get to
+        List<Attempt> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            appendToFallback(remaining);
+        }
+    }
+
+    /**
+     * Ends the back-off after a failure, so the fallback file is replayed on the next idle poll
+     */
+    public void retryNow() {
+        databaseDownUntil = 0;
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public long getRecordedCount() {
+        return recorded.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getFallbackCount() {
+        return fellBack.get();
+    }
+
+    public long getReplayedCount() {
+        return replayed.get();
+    }
+
+    private void run() {
+        List<Attempt> batch = new ArrayList<>(BATCH_SIZE);
+        while (running) {
+            try {
+                Attempt first = queue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                }
+            } catch (InterruptedException e) {
+                // Shutting down: fall through and flush what is queued
+            }
+            if (!running) {
+                queue.drainTo(batch);
+            }
+
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            } else if (running) {
+                replayFallback();
+            }
+        }
+    }
+
+    /**
+     * Inserts a batch, or appends it to the fallback file when the database is unavailable
+     */
+    private void write(List<Attempt> batch) {
+        if (System.currentTimeMillis() < databaseDownUntil) {
+            appendToFallback(batch);
+            return;
+        }
+        int from = 0;
+        try {
+            for (; from < batch.size(); from += BATCH_SIZE) {
+                List<Attempt> chunk = batch.subList(from, Math.min(batch.size(), from + BATCH_SIZE));
+                insert(chunk);
+                written.addAndGet(chunk.size());
+            }
+        } catch (SQLException e) {
+            databaseDownUntil = System.currentTimeMillis() + RETRY_AFTER_FAILURE_MS;
+            LOGGER.warning("Could not write " + (batch.size() - from) + " attempts, saving to " + fallbackFile + ": " + e.getMessage());
+            appendToFallback(batch.subList(from, batch.size()));
+        }
+    }
+
+    /**
+     * Inserts up to BATCH_SIZE attempts as one JDBC batch in one transaction
+     */
+    private void insert(List<Attempt> chunk) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+                for (Attempt attempt : chunk) {
+                    stmt.setString(1, attempt.user);
+                    stmt.setString(2, attempt.category);
+                    stmt.setInt(3, attempt.score);
+                    stmt.setInt(4, attempt.total);
+                    stmt.setLong(5, attempt.durationMs);
+                    stmt.setTimestamp(6, new Timestamp(attempt.finishedAt));
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+                batches.incrementAndGet();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit); // Pooled connections are reused
+            }
+        }
+    }
+
+    /**
+     * Moves the fallback file aside and inserts its contents once the database is back
+     */
+    private void replayFallback() {
+        if (System.currentTimeMillis() < databaseDownUntil) {
+            return;
+        }
+        List<Attempt> pending;
+        synchronized (this) {
+            try {
+                if (!Files.exists(replayFile)) {
+                    if (!Files.exists(fallbackFile) || Files.size(fallbackFile) == 0) {
+                        return;
+                    }
+                    Files.move(fallbackFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                LOGGER.warning("Could not prepare attempt replay: " + e.getMessage());
+                return;
+            }
+            pending = readFile(replayFile);
+        }
+
+        int from = 0;
+        try {
+            for (; from < pending.size(); from += BATCH_SIZE) {
+                insert(pending.subList(from, Math.min(pending.size(), from + BATCH_SIZE)));
+            }
+            replayed.addAndGet(pending.size());
+            LOGGER.info("Replayed " + pending.size() + " attempts from " + fallbackFile);
+        } catch (SQLException e) {
+            databaseDownUntil = System.currentTimeMillis() + RETRY_AFTER_FAILURE_MS;
+            replayed.addAndGet(from);
+            LOGGER.warning("Attempt replay failed after " + from + " rows, will retry the rest: " + e.getMessage());
+        }
+
+        synchronized (this) {
+            try {
+                if (from >= pending.size()) {
+                    Files.deleteIfExists(replayFile);
+                } else {
+                    // Keep only the rows that were not committed
+                    List<String> rest = new ArrayList<>();
+                    for (Attempt attempt : pending.subList(from, pending.size())) {
+                        rest.add(attempt.toLine());
+                    }
+                    Files.write(replayFile, rest, StandardCharsets.UTF_8);
+                }
+            } catch (IOException e) {
+                LOGGER.warning("Could not update " + replayFile + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void appendToFallback(List<Attempt> attempts) {
+        try (BufferedWriter out = Files.newBufferedWriter(fallbackFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Attempt attempt : attempts) {
+                out.write(attempt.toLine());
+                out.newLine();
+            }
+            fellBack.addAndGet(attempts.size());
+        } catch (IOException e) {
+            LOGGER.severe("Lost " + attempts.size() + " attempts, fallback file not writable: " + e.getMessage());
+        }
+    }
+
+    private List<Attempt> readFile(Path file) {
+        List<Attempt> attempts = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return attempts;
+        }
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    attempts.add(Attempt.fromLine(line));
+                } catch (IllegalArgumentException e) {
+                    LOGGER.warning("Skipping unreadable line in " + file + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warning("Could not read " + file + ": " + e.getMessage());
+        }
+        return attempts;
+    }
+}
@@ -0,0 +1,282 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * In-memory index of question ids by category and difficulty.
+ *
+ * The index is read in one pass over the (category, difficulty, id)
+ * composite index, ordered by it, so every category becomes one int array
+ * sorted by difficulty with the start offset of each difficulty level. The
+ * ids matching a quiz spec are then a handful of contiguous slices, and
+ * drawing k of them at random costs O(k) no matter how large the bank or
+ * the category is. The index costs about four bytes per question.
+ */
+public class CategoryIndex {
+    private static final Logger LOGGER = Logger.getLogger(CategoryIndex.class.getName());
+
+    private static final long INDEX_TTL_MS = 10 * 60_000;
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE; // MySQL row-by-row streaming
+    private static final int MAX_REJECTION_FACTOR = 4;
+
+    private final String table;
+    private volatile Snapshot snapshot = null;
+
+    public CategoryIndex(String table) {
+        this.table = table;
+    }
+
+    /**
+     * Draws up to spec.getCount() distinct random ids matching the spec's categories and difficulty range
+     */
+    public int[] sample(Connection conn, QuizSpec spec, QuestionSampler.TransferStats stats) throws SQLException {
+        Snapshot current = getSnapshot(conn, stats);
+
+        // The matching ids as slices of the per-category arrays
+        List<int[]> arrays = new ArrayList<>();
+        List<int[]> bounds = new ArrayList<>();
+        int total = 0;
+        Collection<Category> selected = spec.getCategories().isEmpty()
+            ? current.categories.values()
+            : lookup(current, spec.getCategories());
+        for (Category category : selected) {
+            int from = category.firstAtOrAbove(spec.getMinDifficulty());
+            int to = category.firstAbove(spec.getMaxDifficulty());
+            if (from < to) {
+                arrays.add(category.ids);
+                bounds.add(new int[] {from, to, total});
+                total += to - from;
+            }
+        }
+
+        int limit = spec.getCount();
+        Set<Integer> excluded = spec.getExcludedIds();
+        int available = total - Math.min(total, excluded.size());
+        if (available <= 2 * limit) {
+            return takeAll(arrays, bounds, excluded, limit);
+        }
+
+        // Rejection sampling over the virtual concatenation of the slices
+        Random random = ThreadLocalRandom.current();
+        Set<Integer> chosen = new HashSet<>(limit * 2);
+        int[] ids = new int[limit];
+        int found = 0;
+        for (int draws = 0; found < limit && draws < limit * MAX_REJECTION_FACTOR + excluded.size(); draws++) {
+            int id = idAt(arrays, bounds, random.nextInt(total));
+            if (!excluded.contains(id) && chosen.add(id)) {
+                ids[found++] = id;
+            }
+        }
+        return found == limit ? ids : Arrays.copyOf(ids, found);
+    }
+
+    /**
+     * Number of questions per category, in category order
+     */
+    public Map<String, Integer> getCategoryCounts(Connection conn) throws SQLException {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Category category : getSnapshot(conn, new QuestionSampler.TransferStats()).categories.values()) {
+            counts.put(category.name, category.ids.length);
+        }
+        return counts;
+    }
+
+    /**
+     * Drops the index so the next sample reloads it
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    private static List<Category> lookup(Snapshot current, Set<String> names) {
+        List<Category> categories = new ArrayList<>(names.size());
+        for (String name : names) {
+            Category category = current.categories.get(name);
+            if (category != null) {
+                categories.add(category);
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * Maps a position in the concatenated slices to its id
+     */
+    private static int idAt(List<int[]> arrays, List<int[]> bounds, int position) {
+        for (int i = bounds.size() - 1; i >= 0; i--) {
+            int[] bound = bounds.get(i);
+            if (position >= bound[2]) {
+                return arrays.get(i)[bound[0] + position - bound[2]];
+            }
+        }
+        throw new IllegalStateException("Position out of range: " + position);
+    }
+
+    /**
+     * Small or nearly exhausted selections: shuffle every remaining id and take the first ones
+     */
+    private static int[] takeAll(List<int[]> arrays, List<int[]> bounds, Set<Integer> excluded, int limit) {
+        List<Integer> remaining = new ArrayList<>();
+        for (int i = 0; i < arrays.size(); i++) {
+            int[] ids = arrays.get(i);
+            int[] bound = bounds.get(i);
+            for (int j = bound[0]; j < bound[1]; j++) {
+                if (!excluded.contains(ids[j])) {
+                    remaining.add(ids[j]);
+                }
+            }
+        }
+        Collections.shuffle(remaining);
+        int[] ids = new int[Math.min(limit, remaining.size())];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = remaining.get(i);
+        }
+        return ids;
+    }
+
+    private Snapshot getSnapshot(Connection conn, QuestionSampler.TransferStats stats) throws SQLException {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() - current.loadedAt < INDEX_TTL_MS) {
+            return current;
+        }
+        current = load(conn, stats);
+        snapshot = current;
+        return current;
+    }
+
+    /**
+     * Streams (category, difficulty, id) in index order and builds one array per category
+     */
+    private Snapshot load(Connection conn, QuestionSampler.TransferStats stats) throws SQLException {
+        long start = System.currentTimeMillis();
+        Map<String, Category> categories = new TreeMap<>();
+        String query = "SELECT category, difficulty, id FROM " + table + " ORDER BY category, difficulty, id";
+
+        try (PreparedStatement stmt = conn.prepareStatement(query,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(STREAMING_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                // Rows arrive grouped by category; a case-insensitive collation may interleave variants
+                Map<String, Builder> builders = new TreeMap<>();
+                Builder builder = null;
+                while (rs.next()) {
+                    String name = rs.getString(1);
+                    int difficulty = rs.getInt(2);
+                    int id = rs.getInt(3);
+                    if (name == null) {
+                        name = "";
+                    }
+                    if (builder == null || !builder.name.equals(name)) {
+                        builder = builders.get(name);
+                        if (builder == null) {
+                            builder = new Builder(name);
+                            builders.put(name, builder);
+                        }
+                    }
+                    builder.add(difficulty, id);
+                    stats.idRows++;
+                    stats.bytes += 2 * Integer.BYTES + QuestionSampler.utf8Length(name);
+                }
+                for (Builder built : builders.values()) {
+                    categories.put(built.name, built.build());
+                }
+            }
+        }
+
+        Snapshot loaded = new Snapshot(Collections.unmodifiableMap(categories));
+        LOGGER.info(String.format("Loaded category index for %s: %d categories in %dms",
+            table, categories.size(), System.currentTimeMillis() - start));
+        return loaded;
+    }
+
+    /**
+     * The ids of one category, sorted by difficulty
+     */
+    private static final class Category {
+        final String name;
+        final int[] ids;
+        final int[] levels;      // Distinct difficulties, ascending
+        final int[] levelStarts; // Offset of the first id of each level, plus ids.length
+
+        Category(String name, int[] ids, int[] levels, int[] levelStarts) {
+            this.name = name;
+            this.ids = ids;
+            this.levels = levels;
+            this.levelStarts = levelStarts;
+        }
+
+        int firstAtOrAbove(int difficulty) {
+            int level = 0;
+            while (level < levels.length && levels[level] < difficulty) {
+                level++;
+            }
+            return levelStarts[level];
+        }
+
+        int firstAbove(int difficulty) {
+            int level = 0;
+            while (level < levels.length && levels[level] <= difficulty) {
+                level++;
+            }
+            return levelStarts[level];
+        }
+    }
+
+    private static final class Builder {
+        final String name;
+        int[] ids = new int[16];
+        int size = 0;
+        int[] levels = new int[4];
+        int[] levelStarts = new int[4];
+        int levelCount = 0;
+
+        Builder(String name) {
+            this.name = name;
+        }
+
+        void add(int difficulty, int id) {
+            if (levelCount == 0 || levels[levelCount - 1] != difficulty) {
+                if (levelCount == levels.length) {
+                    levels = Arrays.copyOf(levels, levelCount * 2);
+                    levelStarts = Arrays.copyOf(levelStarts, levelCount * 2);
+                }
+                levels[levelCount] = difficulty;
+                levelStarts[levelCount] = size;
+                levelCount++;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        Category build() {
+            int[] starts = Arrays.copyOf(levelStarts, levelCount + 1);
+            starts[levelCount] = size;
+            return new Category(name, Arrays.copyOf(ids, size), Arrays.copyOf(levels, levelCount), starts);
+        }
+    }
+
+    private static final class Snapshot {
+        final Map<String, Category> categories;
+        final long loadedAt = System.currentTimeMillis();
+
+        Snapshot(Map<String, Category> categories) {
+            this.categories = categories;
+        }
+    }
+}
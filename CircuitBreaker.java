@@ -0,0 +1,187 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * Circuit breaker in front of a remote dependency.
+ *
+ * CLOSED lets every call through and counts consecutive failures; at the
+ * threshold the breaker trips to OPEN and rejects calls without trying them.
+ * Once the open period has passed, the next call is let through as a trial
+ * (HALF_OPEN): success closes the breaker, failure opens it again for twice
+ * as long, up to a maximum. Open periods are jittered so that several
+ * clients do not come back at the same moment.
+ *
+ * Callers ask tryAcquire before a call and report its outcome with
+ * recordSuccess, recordFailure or, when the outcome says nothing about the
+ * dependency, release.
+ */
+public class CircuitBreaker {
+    private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Notified after every state change, outside the breaker's lock
+     */
+    public interface Listener {
+        void onStateChange(State from, State to);
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long baseOpenMs;
+    private final long maxOpenMs;
+    private final Listener listener;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private int consecutiveTrips = 0;
+    private long openUntil = 0;
+    private boolean trialInFlight = false;
+
+    private long trips = 0;
+    private long rejected = 0;
+    private long lastStateChange = System.currentTimeMillis();
+
+    /**
+     * @param failureThreshold consecutive failures that trip the breaker
+     * @param baseOpenMs       first open period, doubled on every failed trial
+     * @param maxOpenMs        longest open period
+     * @param listener         state change callback, or null
+     */
+    public CircuitBreaker(String name, int failureThreshold, long baseOpenMs, long maxOpenMs, Listener listener) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.baseOpenMs = baseOpenMs;
+        this.maxOpenMs = maxOpenMs;
+        this.listener = listener;
+    }
+
+    /**
+     * Whether a call may go ahead; a true answer must be followed by exactly one outcome report
+     */
+    public boolean tryAcquire() {
+        State from;
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.HALF_OPEN || System.currentTimeMillis() < openUntil) {
+                rejected++;
+                return false; // Still open, or the trial call is under way
+            }
+            from = state;
+            changeState(State.HALF_OPEN);
+            trialInFlight = true;
+        }
+        notifyListener(from, State.HALF_OPEN);
+        return true;
+    }
+
+    public void recordSuccess() {
+        State from;
+        synchronized (this) {
+            if (state == State.OPEN) {
+                return; // A call let through before the trip; only the trial may close the breaker
+            }
+            consecutiveFailures = 0;
+            if (state == State.CLOSED) {
+                return;
+            }
+            from = state;
+            trialInFlight = false;
+            consecutiveTrips = 0;
+            changeState(State.CLOSED);
+        }
+        notifyListener(from, State.CLOSED);
+    }
+
+    public void recordFailure() {
+        State from;
+        synchronized (this) {
+            consecutiveFailures++;
+            if (state == State.OPEN || (state == State.CLOSED && consecutiveFailures < failureThreshold)) {
+                return;
+            }
+            from = state;
+            trialInFlight = false;
+            consecutiveTrips++;
+            trips++;
+            openUntil = System.currentTimeMillis() + backoff(baseOpenMs, maxOpenMs, consecutiveTrips);
+            changeState(State.OPEN);
+        }
+        notifyListener(from, State.OPEN);
+    }
+
+    /**
+     * Ends a call whose outcome does not count either way, letting the next trial through
+     */
+    public void release() {
+        synchronized (this) {
+            if (state != State.HALF_OPEN || !trialInFlight) {
+                return;
+            }
+            trialInFlight = false;
+            changeState(State.OPEN); // openUntil has passed: the next tryAcquire is the new trial
+        }
+        notifyListener(State.HALF_OPEN, State.OPEN);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public synchronized long getTripCount() {
+        return trips;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+
+    /**
+     * Time left before the next trial call, or 0 when calls are let through
+     */
+    public synchronized long getRetryInMillis() {
+        return state == State.OPEN ? Math.max(0, openUntil - System.currentTimeMillis()) : 0;
+    }
+
+    public synchronized long getLastStateChangeMillis() {
+        return lastStateChange;
+    }
+
+    /**
+     * Exponential delay for the given attempt, counted from 1, with equal jitter:
+     * a random value between half and all of min(max, base * 2^(attempt - 1))
+     */
+    public static long backoff(long baseMs, long maxMs, int attempt) {
+        long delay = baseMs << Math.min(attempt - 1, 30);
+        if (delay <= 0 || delay > maxMs) {
+            delay = maxMs;
+        }
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    private void changeState(State to) {
+        State from = state;
+        state = to;
+        lastStateChange = System.currentTimeMillis();
+        if (to == State.OPEN && openUntil > lastStateChange) {
+            LOGGER.warning(String.format("Circuit %s %s -> OPEN after %d consecutive failures; next trial in %dms",
+                name, from, consecutiveFailures, openUntil - lastStateChange));
+        } else {
+            LOGGER.info("Circuit " + name + " " + from + " -> " + to);
+        }
+    }
+
+    private void notifyListener(State from, State to) {
+        if (listener != null) {
+            listener.onStateChange(from, to);
+        }
+    }
+}
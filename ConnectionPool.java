@@ -0,0 +1,362 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Small bounded JDBC connection pool.
+ *
+ * Borrowed connections are proxies whose {@code close()} hands the physical
+ * connection back to the pool. The pool keeps between {@code minSize} and
+ * {@code maxSize} physical connections, validates idle connections before
+ * lending them out, evicts connections that sat idle for too long and logs
+ * connections that were borrowed but never returned.
+ */
+public class ConnectionPool {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    private static final int VALIDATION_TIMEOUT_S = 2;
+    private static final long VALIDATION_IDLE_MS = 1_000;
+    private static final long HOUSEKEEPING_INTERVAL_MS = 15_000;
+
+    /**
+     * Opens new physical connections for the pool
+     */
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long leakThresholdMs;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final Map<PooledEntry, Boolean> active = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService housekeeper;
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowNanosTotal = new AtomicLong();
+    private final AtomicLong borrowNanosMax = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+    private volatile boolean warmedUp = false;
+    private volatile boolean closed = false;
+
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize,
+                          long borrowTimeoutMs, long idleTimeoutMs, long leakThresholdMs) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::houseKeep,
+            HOUSEKEEPING_INTERVAL_MS, HOUSEKEEPING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout for a free slot
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        waiters.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMs +
+                    "ms waiting for a database connection (active=" + active.size() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waiters.decrementAndGet();
+        }
+
+        PooledEntry entry;
+        try {
+            entry = takeIdleOrCreate();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        entry.borrowedAt = System.currentTimeMillis();
+        entry.borrowSite = leakThresholdMs > 0 ? new Exception("Connection borrowed here") : null;
+        active.put(entry, Boolean.TRUE);
+        warmedUp = true;
+
+        recordBorrowLatency(System.nanoTime() - start);
+        return entry.newHandle();
+    }
+
+    private PooledEntry takeIdleOrCreate() throws SQLException {
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            if (isUsable(entry)) {
+                return entry;
+            }
+            LOGGER.fine("Discarding stale pooled connection");
+            destroy(entry);
+        }
+
+        PooledEntry created = new PooledEntry(factory.create());
+        totalConnections.incrementAndGet();
+        return created;
+    }
+
+    /**
+     * Validates connections that have been idle long enough to have gone stale
+     */
+    private boolean isUsable(PooledEntry entry) {
+        try {
+            if (entry.physical.isClosed()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - entry.returnedAt < VALIDATION_IDLE_MS) {
+                return true;
+            }
+            return entry.physical.isValid(VALIDATION_TIMEOUT_S);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Hands a physical connection back after its handle was closed
+     */
+    private void release(PooledEntry entry) {
+        active.remove(entry);
+        entry.borrowSite = null;
+
+        boolean reusable = !closed;
+        if (reusable) {
+            try {
+                if (entry.physical.isClosed()) {
+                    reusable = false;
+                } else if (!entry.physical.getAutoCommit()) {
+                    // Don't leak an open transaction to the next borrower
+                    entry.physical.rollback();
+                    entry.physical.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                LOGGER.warning("Failed to reset pooled connection: " + e.getMessage());
+                reusable = false;
+            }
+        }
+
+        if (reusable) {
+            entry.returnedAt = System.currentTimeMillis();
+            idle.offerFirst(entry);
+        } else {
+            destroy(entry);
+        }
+        permits.release();
+    }
+
+    private void destroy(PooledEntry entry) {
+        totalConnections.decrementAndGet();
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            LOGGER.fine("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Evicts idle connections, tops the pool up to its minimum size and reports leaks
+     */
+    private void houseKeep() {
+        try {
+            long now = System.currentTimeMillis();
+
+            Iterator<PooledEntry> it = idle.descendingIterator();
+            while (it.hasNext() && totalConnections.get() > minSize) {
+                PooledEntry entry = it.next();
+                if (now - entry.returnedAt > idleTimeoutMs && idle.remove(entry)) {
+                    LOGGER.fine("Evicting connection idle for " + (now - entry.returnedAt) + "ms");
+                    destroy(entry);
+                }
+            }
+
+            // Only pre-open connections once the database has been reachable
+            while (warmedUp && !closed && totalConnections.get() < minSize && permits.tryAcquire()) {
+                try {
+                    PooledEntry entry = new PooledEntry(factory.create());
+                    totalConnections.incrementAndGet();
+                    idle.offerLast(entry);
+                } finally {
+                    permits.release();
+                }
+            }
+
+            if (leakThresholdMs > 0) {
+                for (PooledEntry entry : active.keySet()) {
+                    long heldFor = now - entry.borrowedAt;
+                    if (heldFor > leakThresholdMs && !entry.leakReported) {
+                        entry.leakReported = true;
+                        leaksDetected.incrementAndGet();
+                        LOGGER.log(Level.WARNING, "Possible connection leak: connection held for " +
+                            heldFor + "ms", entry.borrowSite);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.warning("Connection pool housekeeping failed: " + e.getMessage());
+        }
+    }
+
+    private void recordBorrowLatency(long nanos) {
+        borrowCount.incrementAndGet();
+        borrowNanosTotal.addAndGet(nanos);
+        long max;
+        while (nanos > (max = borrowNanosMax.get())) {
+            if (borrowNanosMax.compareAndSet(max, nanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Closes idle connections; borrowed ones are closed when they are returned
+     */
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry);
+        }
+        LOGGER.info("Connection pool shut down (" + active.size() + " connections still borrowed)");
+    }
+
+    public int getActiveCount() {
+        return active.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getWaiterCount() {
+        return waiters.get();
+    }
+
+    public int getTotalCount() {
+        return totalConnections.get();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getLeaksDetected() {
+        return leaksDetected.get();
+    }
+
+    public double getAverageBorrowMillis() {
+        long count = borrowCount.get();
+        return count == 0 ? 0 : borrowNanosTotal.get() / (count * 1_000_000.0);
+    }
+
+    public double getMaxBorrowMillis() {
+        return borrowNanosMax.get() / 1_000_000.0;
+    }
+
+    /**
+     * A physical connection plus its bookkeeping
+     */
+    private class PooledEntry {
+        final Connection physical;
+        volatile long borrowedAt;
+        volatile long returnedAt = System.currentTimeMillis();
+        volatile Exception borrowSite;
+        volatile boolean leakReported;
+
+        PooledEntry(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection newHandle() {
+            leakReported = false;
+            return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Handle(this));
+        }
+    }
+
+    /**
+     * Borrower-facing view of a pooled connection; close() returns it to the pool
+     */
+    private class Handle implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean handleClosed = false;
+
+        Handle(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return handleClosed || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + "]";
+                default:
+                    if (handleClosed) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(entry.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -1,6 +1,14 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -14,30 +22,150 @@ public class DatabaseConnector {
     
     // Connection pool settings
     private static final int MAX_RETRY_ATTEMPTS = 3;
-    private static final int RETRY_DELAY_MS = 1000;
+    private static final long RETRY_BASE_DELAY_MS = 250;   // Doubled per attempt, with jitter
+    private static final long RETRY_MAX_DELAY_MS = 2_000;
+    private static final int POOL_MIN_SIZE = 1;
+    private static final int POOL_MAX_SIZE = 8;
+    private static final long POOL_BORROW_TIMEOUT_MS = 5_000;
+    private static final long POOL_IDLE_TIMEOUT_MS = 300_000;
+    private static final long POOL_LEAK_THRESHOLD_MS = 60_000;
     
-    private static Connection connection = null;
+    private static volatile ConnectionPool pool = null;
+    private static boolean closing = false; // Guarded by the class lock
+    
+    // Circuit breaker in front of every connection: fail fast while MySQL is down
+    private static final int BREAKER_FAILURE_THRESHOLD = 2;     // Failed calls, each already retried
+    private static final long BREAKER_BASE_OPEN_MS = 2_000;
+    private static final long BREAKER_MAX_OPEN_MS = 60_000;
+    private static final CircuitBreaker BREAKER = new CircuitBreaker("mysql", BREAKER_FAILURE_THRESHOLD,
+        BREAKER_BASE_OPEN_MS, BREAKER_MAX_OPEN_MS, DatabaseConnector::onBreakerStateChange);
+    
+    // Question sampling
+    private static final QuestionSampler QUESTION_SAMPLER =
+        new QuestionSampler("questions", DatabaseConnector::bumpQuestionBankVersion);
+    private static volatile QuestionSampler.Mode samplingMode = QuestionSampler.Mode.INDEXED;
+    
+    // Bumped whenever a change to the questions table is observed
+    private static final AtomicLong questionBankVersion = new AtomicLong();
+    private static volatile int lastKnownQuestionCount = -1;
+    
+    // Transfer accounting for assembled quizzes
+    private static final AtomicLong quizzesAssembled = new AtomicLong();
+    private static final AtomicLong rowsTransferred = new AtomicLong();
+    private static final AtomicLong bytesTransferred = new AtomicLong();
+    private static final AtomicLong questionsDelivered = new AtomicLong();
+    
+    // Optional in-memory question cache, enabled with -Dquiz.cache=true
+    private static final long CACHE_REFRESH_INTERVAL_MS = 60_000;
+    private static final long CACHE_MAX_BYTES = 256L * 1024 * 1024;
+    private static final long CACHE_IDLE_EVICTION_MS = 30 * 60_000;
+    
+    private static volatile QuestionCache questionCache = Boolean.getBoolean("quiz.cache")
+        ? new QuestionCache(CACHE_REFRESH_INTERVAL_MS, CACHE_MAX_BYTES, CACHE_IDLE_EVICTION_MS)
+        : null;
+    
+    // Snapshot file the cache starts from, set with -Dquiz.snapshot=path
+    private static final String CACHE_SNAPSHOT_FILE = System.getProperty("quiz.snapshot");
+    
+    static {
+        if (CACHE_SNAPSHOT_FILE != null) {
+            try {
+                loadCacheSnapshot(Paths.get(CACHE_SNAPSHOT_FILE));
+            } catch (IOException e) {
+                LOGGER.warning("Could not load question snapshot " + CACHE_SNAPSHOT_FILE + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    // Finished quiz results, written behind to the attempts table
+    private static final String ATTEMPTS_FALLBACK_FILE = System.getProperty("quiz.attemptsFile",
+        Paths.get(System.getProperty("user.home"), ".quiz-attempts.log").toString());
+    private static volatile AttemptStore attemptStore = null;
+    
+    // Question ids per statement when reading question_stats
+    private static final int QUESTION_STATS_BATCH = 500;
+    
+    // Rows per batch when saving review states
+    private static final int REVIEW_STATE_BATCH = 500;
+    
+    // Local copy of the question bank served while MySQL is unreachable, see enableOfflineStore
+    private static final String OFFLINE_STORE_FILE = System.getProperty("quiz.offlineStore",
+        Paths.get(System.getProperty("user.home"), ".quiz-offline.qsnap").toString());
+    private static final String CONNECTION_FAILURE_STATE = "08001"; // SQL state: unable to connect
+    private static volatile OfflineQuestionStore offlineStore = null;
 
     /**
-     * Gets database connection with retry mechanism
+     * Borrows a pooled database connection; closing it returns it to the pool.
+     * Fails immediately while the circuit breaker is open.
      */
     public static Connection getConnection() throws SQLException {
+        if (!BREAKER.tryAcquire()) {
+            throw new SQLException("MySQL is unavailable (circuit open, next try in " +
+                BREAKER.getRetryInMillis() + "ms)", CONNECTION_FAILURE_STATE);
+        }
+        try {
+            Connection connection = getPool().borrow();
+            BREAKER.recordSuccess();
+            return connection;
+        } catch (SQLException e) {
+            if (isConnectionFailure(e)) {
+                BREAKER.recordFailure();
+            } else {
+                BREAKER.release(); // Pool timeouts and the like say nothing about MySQL
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            BREAKER.release(); // Otherwise a failed trial would keep the breaker half-open for good
+            throw e;
+        }
+    }
+    
+    /**
+     * The pool, created on first use; lock-free once it exists, so closeConnection can flush through it
+     */
+    private static ConnectionPool getPool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current != null) {
+            return current;
+        }
+        synchronized (DatabaseConnector.class) {
+            if (closing) {
+                throw new SQLException("Database connections are being closed");
+            }
+            if (pool == null) {
+                pool = new ConnectionPool(DatabaseConnector::createConnection,
+                    POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_BORROW_TIMEOUT_MS,
+                    POOL_IDLE_TIMEOUT_MS, POOL_LEAK_THRESHOLD_MS);
+            }
+            return pool;
+        }
+    }
+    
+    /**
+     * Opens a new physical connection, retrying with exponential backoff. A
+     * trial call of the circuit breaker gets a single attempt, and retries
+     * stop as soon as another caller has opened the breaker.
+     */
+    private static Connection createConnection() throws SQLException {
+        if (BREAKER.getState() == CircuitBreaker.State.OPEN) {
+            // Pool housekeeping does not go through getConnection
+            throw new SQLException("MySQL is unavailable (circuit open)", CONNECTION_FAILURE_STATE);
+        }
+        int maxAttempts = BREAKER.getState() == CircuitBreaker.State.HALF_OPEN ? 1 : MAX_RETRY_ATTEMPTS;
         int attempts = 0;
         SQLException lastException = null;
         
-        while (attempts < MAX_RETRY_ATTEMPTS) {
+        while (attempts < maxAttempts) {
             try {
-                if (connection == null || connection.isClosed()) {
-                    Class.forName("com.mysql.cj.jdbc.Driver");
-                    connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-                    LOGGER.info("Database connection established successfully");
-                }
+                Class.forName("com.mysql.cj.jdbc.Driver");
+                Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+                LOGGER.info("Database connection established successfully");
                 return connection;
                 
             } catch (ClassNotFoundException e) {
                 String errorMsg = "MySQL JDBC Driver not found. Please ensure mysql-connector-java is in classpath";
                 LOGGER.severe(errorMsg);
-                throw new SQLException(errorMsg, e);
+                throw new SQLException(errorMsg, CONNECTION_FAILURE_STATE, e);
                 
             } catch (SQLException e) {
                 lastException = e;
@@ -47,9 +175,9 @@ public class DatabaseConnector {
                     attempts, e.getMessage());
                 LOGGER.warning(errorMsg);
                 
-                if (attempts < MAX_RETRY_ATTEMPTS) {
+                if (attempts < maxAttempts && BREAKER.getState() == CircuitBreaker.State.CLOSED) {
                     try {
-                        Thread.sleep(RETRY_DELAY_MS);
+                        Thread.sleep(CircuitBreaker.backoff(RETRY_BASE_DELAY_MS, RETRY_MAX_DELAY_MS, attempts));
                     } catch (InterruptedException ie) {
                         Thread.currentThread().interrupt();
                         throw new SQLException("Connection retry interrupted", ie);
@@ -57,7 +185,7 @@ public class DatabaseConnector {
                 } else {
                     LOGGER.severe("All database connection attempts failed");
                     throw new SQLException("Failed to establish database connection after " + 
-                        MAX_RETRY_ATTEMPTS + " attempts", lastException);
+                        attempts + " attempts", CONNECTION_FAILURE_STATE, lastException);
                 }
             }
         }
@@ -76,44 +204,128 @@ public class DatabaseConnector {
      * Retrieves specified number of questions with error handling
      */
     public static List<Question> getQuestions(int limit) throws SQLException {
-        List<Question> questions = new ArrayList<>();
-        
         // Validate input
         if (limit <= 0) {
             throw new IllegalArgumentException("Question limit must be positive, got: " + limit);
         }
         
-        String query = "SELECT id, question, option1, option2, option3, option4, correct_answer " +
-                      "FROM questions ORDER BY RAND() LIMIT ?";
+        return assembleQuiz(new QuizSpec(limit));
+    }
+    
+    /**
+     * Retrieves the specified number of questions from one category
+     */
+    public static List<Question> getQuestions(String category, int limit) throws SQLException {
+        if (category == null || category.trim().isEmpty()) {
+            throw new IllegalArgumentException("Category must not be empty");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Question limit must be positive, got: " + limit);
+        }
         
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            
-            stmt.setInt(1, limit);
-            LOGGER.info("Executing query to fetch " + limit + " questions");
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                int questionCount = 0;
-                
-                while (rs.next()) {
-                    try {
-                        Question question = createQuestionFromResultSet(rs);
-                        questions.add(question);
-                        questionCount++;
-                        
-                    } catch (Exception e) {
-                        // Log individual question parsing errors but continue
-                        LOGGER.warning("Failed to parse question with ID " + 
-                            rs.getInt("id") + ": " + e.getMessage());
-                    }
+        return assembleQuiz(new QuizSpec(limit, Collections.singleton(category.trim()), null));
+    }
+    
+    /**
+     * Retrieves the questions with the given ids; ids no longer in the bank are left out
+     */
+    public static List<Question> getQuestionsById(Collection<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        QuestionSampler.TransferStats stats = new QuestionSampler.TransferStats();
+        try (Connection conn = getConnection()) {
+            List<Question> questions = QUESTION_SAMPLER.fetch(conn, ids, stats);
+            recordTransfer(stats, questions.size());
+            return questions;
+        } catch (SQLException e) {
+            throw new SQLException("Failed to fetch questions by id: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Lists the question categories with the number of questions in each
+     */
+    public static Map<String, Integer> getCategoryCounts() throws SQLException {
+        OfflineQuestionStore offline = offlineStore;
+        if (offline != null && isOffline() && offline.isAvailable()) {
+            return offline.getCategoryCounts();
+        }
+        try (Connection conn = getConnection()) {
+            return QUESTION_SAMPLER.getCategoryCounts(conn);
+        } catch (SQLException e) {
+            if (offline != null && isConnectionFailure(e) && offline.isAvailable()) {
+                return offline.getCategoryCounts();
+            }
+            LOGGER.severe("Failed to list categories: " + e.getMessage());
+            if (e.getErrorCode() == 1054) { // Unknown column
+                throw new SQLException("Questions table has no category/difficulty columns. Please run the schema migration.", e);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Fetches exactly the questions a quiz needs, already in random order
+     */
+    public static List<Question> assembleQuiz(QuizSpec spec) throws SQLException {
+        QuestionCache cache = questionCache;
+        if (cache != null) {
+            try {
+                List<Question> cached = cache.sample(spec);
+                if (cached != null && !cached.isEmpty()) {
+                    questionsDelivered.addAndGet(cached.size());
+                    return cached;
                 }
-                
-                LOGGER.info("Successfully retrieved " + questionCount + " questions");
-                
-                if (questions.isEmpty()) {
-                    LOGGER.warning("No questions found in database");
-                    throw new SQLException("No questions available in the database");
+                if (cached != null) {
+                    // Nothing matches in the cached bank; the database or the offline store decides
+                    LOGGER.fine("No cached questions match " + spec + ", querying database");
                 }
+            } catch (SQLException e) {
+                LOGGER.warning("Question cache unavailable, querying database: " + e.getMessage());
+            }
+        }
+        
+        OfflineQuestionStore offline = offlineStore;
+        if (offline != null && isOffline() && offline.isAvailable()) {
+            return sampleOffline(offline, spec);
+        }
+        try {
+            return queryQuestions(spec);
+        } catch (SQLException e) {
+            if (offline != null && isConnectionFailure(e) && offline.isAvailable()) {
+                return sampleOffline(offline, spec);
+            }
+            throw e;
+        }
+    }
+    
+    private static List<Question> sampleOffline(OfflineQuestionStore offline, QuizSpec spec) throws SQLException {
+        List<Question> questions = offline.sample(spec);
+        if (questions.isEmpty()) {
+            throw new SQLException("No questions available in the offline question store");
+        }
+        questionsDelivered.addAndGet(questions.size());
+        return questions;
+    }
+    
+    /**
+     * Samples questions straight from the database
+     */
+    private static List<Question> queryQuestions(QuizSpec spec) throws SQLException {
+        List<Question> questions;
+        QuestionSampler.TransferStats stats = new QuestionSampler.TransferStats();
+        
+        try (Connection conn = getConnection()) {
+            LOGGER.info("Assembling " + spec + " using " + samplingMode + " strategy");
+            questions = QUESTION_SAMPLER.sample(conn, spec, samplingMode, stats);
+            recordTransfer(stats, questions.size());
+            LOGGER.info(String.format("Successfully retrieved %d questions (%d rows, %d id rows, ~%d bytes)",
+                questions.size(), stats.rows, stats.idRows, stats.bytes));
+            
+            if (questions.isEmpty()) {
+                LOGGER.warning("No questions found in database");
+                throw new SQLException("No questions available in the database");
             }
             
         } catch (SQLException e) {
@@ -133,14 +345,79 @@ public class DatabaseConnector {
         return questions;
     }
     
+    private static void recordTransfer(QuestionSampler.TransferStats stats, int questionsUsed) {
+        quizzesAssembled.incrementAndGet();
+        rowsTransferred.addAndGet(stats.rows + stats.idRows);
+        bytesTransferred.addAndGet(stats.bytes);
+        questionsDelivered.addAndGet(questionsUsed);
+    }
+    
+    /**
+     * Selects how getQuestions(int) draws random rows
+     */
+    public static void setSamplingMode(QuestionSampler.Mode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("Sampling mode must not be null");
+        }
+        samplingMode = mode;
+        LOGGER.info("Question sampling mode set to " + mode);
+    }
+    
+    public static QuestionSampler.Mode getSamplingMode() {
+        return samplingMode;
+    }
+    
+    /**
+     * Returns a counter that changes whenever the question bank is seen to change
+     */
+    public static long getQuestionBankVersion() {
+        return questionBankVersion.get();
+    }
+    
+    /**
+     * Records that the questions table was modified
+     */
+    public static void notifyQuestionBankChanged() {
+        QUESTION_SAMPLER.invalidate();
+        bumpQuestionBankVersion();
+    }
+    
+    private static void bumpQuestionBankVersion() {
+        long version = questionBankVersion.incrementAndGet();
+        LOGGER.info("Question bank changed, version is now " + version);
+    }
+    
     /**
-     * Creates Question object from ResultSet with validation
+     * Creates Question object from ResultSet with validation, as the shared template for its id
      */
-    private static Question createQuestionFromResultSet(ResultSet rs) throws SQLException {
+    static Question createQuestionFromResultSet(ResultSet rs) throws SQLException {
+        return Question.intern(readQuestion(rs));
+    }
+    
+    /**
+     * Validates a question row into a new Question, without interning it
+     */
+    static Question readQuestion(ResultSet rs) throws SQLException {
         int id = rs.getInt("id");
-        String questionText = rs.getString("question");
-        String correctAnswer = rs.getString("correct_answer");
         
+        // Get options, flagging empty ones
+        String[] options = new String[4];
+        for (int i = 1; i <= 4; i++) {
+            options[i-1] = rs.getString("option" + i);
+            if (options[i-1] == null || options[i-1].trim().isEmpty()) {
+                LOGGER.warning("Option " + i + " is null or empty for question ID: " + id);
+            }
+        }
+        
+        return validateQuestion(id, rs.getString("question"), options, rs.getString("correct_answer"));
+    }
+    
+    /**
+     * Validates and trims the fields of a question row: the text and the answer must not be empty,
+     * and the answer must be one of the options. Null options become empty strings.
+     */
+    static Question validateQuestion(int id, String questionText, String[] rawOptions, String correctAnswer)
+            throws SQLException {
         // Validate required fields
         if (questionText == null || questionText.trim().isEmpty()) {
             throw new SQLException("Question text is null or empty for ID: " + id);
@@ -150,26 +427,26 @@ public class DatabaseConnector {
             throw new SQLException("Correct answer is null or empty for question ID: " + id);
         }
         
-        // Get options with validation
-        String[] options = new String[4];
-        for (int i = 1; i <= 4; i++) {
-            options[i-1] = rs.getString("option" + i);
-            if (options[i-1] == null || options[i-1].trim().isEmpty()) {
-                LOGGER.warning("Option " + i + " is null or empty for question ID: " + id);
-                options[i-1] = ""; // Set to empty string instead of null
-            }
+        String[] options = new String[rawOptions.length];
+        for (int i = 0; i < rawOptions.length; i++) {
+            options[i] = rawOptions[i] == null ? "" : rawOptions[i].trim();
         }
         
-        return new Question(questionText.trim(), options, correctAnswer.trim());
+        // Resolve the correct option index once, here, instead of at every answer check
+        try {
+            return new Question(id, questionText.trim(), options, correctAnswer.trim());
+        } catch (IllegalArgumentException e) {
+            throw new SQLException("Correct answer '" + correctAnswer.trim() +
+                "' is not one of the options for question ID: " + id, e);
+        }
     }
 
     /**
      * Tests database connection with detailed diagnostics
      */
     public static boolean testConnection() {
-        try {
-            LOGGER.info("Testing database connection...");
-            Connection conn = getConnection();
+        LOGGER.info("Testing database connection...");
+        try (Connection conn = getConnection()) {
             
             if (conn != null && !conn.isClosed()) {
                 // Test with a simple query
@@ -192,6 +469,62 @@ public class DatabaseConnector {
         }
     }
     
+    /**
+     * Serves quizzes from a local copy of the question bank whenever MySQL
+     * is unreachable. The copy is kept in sync in the background; finished
+     * quizzes recorded meanwhile go to the attempts fallback file and are
+     * replayed once the database is back.
+     */
+    public static synchronized void enableOfflineStore() {
+        if (offlineStore == null) {
+            offlineStore = new OfflineQuestionStore(Paths.get(OFFLINE_STORE_FILE));
+        }
+    }
+    
+    /**
+     * Whether quizzes are served from the offline store: it is enabled and the circuit breaker is not closed
+     */
+    public static boolean isOffline() {
+        return offlineStore != null && BREAKER.getState() != CircuitBreaker.State.CLOSED;
+    }
+    
+    /**
+     * Lets a connection attempt through once the breaker allows a trial, so an idle client notices recovery
+     */
+    static void probeConnection() {
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT 1");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+        } catch (SQLException e) {
+            LOGGER.fine("MySQL still unavailable: " + e.getMessage());
+        }
+    }
+    
+    private static void onBreakerStateChange(CircuitBreaker.State from, CircuitBreaker.State to) {
+        OfflineQuestionStore offline = offlineStore;
+        if (to == CircuitBreaker.State.OPEN && from == CircuitBreaker.State.CLOSED && offline != null) {
+            LOGGER.warning("Working offline with " + offline.getQuestionCount() + " questions from " + offline.getFile());
+        } else if (to == CircuitBreaker.State.CLOSED) {
+            AttemptStore store = attemptStore; // Not getAttemptStore: without a store there is nothing to replay
+            if (store != null) {
+                store.retryNow(); // Replay results recorded while MySQL was down
+            }
+        }
+    }
+    
+    static boolean isConnectionFailure(SQLException failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                String state = ((SQLException) cause).getSQLState();
+                if (state != null && state.startsWith("08")) { // Connection exception class
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
     /**
      * Gets database metadata for diagnostics
      */
@@ -234,6 +567,22 @@ public class DatabaseConnector {
      * Gets question count for validation
      */
     public static int getQuestionCount() throws SQLException {
+        QuestionCache cache = questionCache;
+        if (cache != null) {
+            try {
+                int cached = cache.getQuestionCount();
+                if (cached >= 0) {
+                    return cached;
+                }
+            } catch (SQLException e) {
+                LOGGER.warning("Question cache unavailable, querying database: " + e.getMessage());
+            }
+        }
+        
+        return queryQuestionCount();
+    }
+    
+    private static int queryQuestionCount() throws SQLException {
         String query = "SELECT COUNT(*) as count FROM questions";
         
         try (Connection conn = getConnection();
@@ -243,6 +592,10 @@ public class DatabaseConnector {
             if (rs.next()) {
                 int count = rs.getInt("count");
                 LOGGER.info("Total questions in database: " + count);
+                if (lastKnownQuestionCount >= 0 && lastKnownQuestionCount != count) {
+                    notifyQuestionBankChanged();
+                }
+                lastKnownQuestionCount = count;
                 return count;
             }
             
@@ -255,18 +608,266 @@ public class DatabaseConnector {
     }
 
     /**
-     * Safely closes database connection
+     * Queues a finished quiz for the attempts table; returns without touching the database
      */
-    public static void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                LOGGER.info("Database connection closed successfully");
+    public static void recordAttempt(AttemptStore.Attempt attempt) {
+        getAttemptStore().record(attempt);
+    }
+    
+    /**
+     * Best recorded score of a user in a category, including results not yet written
+     */
+    public static int getHighScore(String user, String category) {
+        return getAttemptStore().getHighScore(user, category);
+    }
+    
+    private static synchronized AttemptStore getAttemptStore() {
+        if (attemptStore == null) {
+            attemptStore = new AttemptStore(Paths.get(ATTEMPTS_FALLBACK_FILE));
+        }
+        return attemptStore;
+    }
+
+    /**
+     * Reads stored answer statistics for the given questions; questions without a row are left out
+     */
+    public static Map<Integer, DifficultyModel.StoredStats> loadQuestionStats(Collection<Integer> questionIds)
+            throws SQLException {
+        Map<Integer, DifficultyModel.StoredStats> stats = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(questionIds);
+        
+        try (Connection conn = getConnection()) {
+            for (int from = 0; from < ids.size(); from += QUESTION_STATS_BATCH) {
+                List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + QUESTION_STATS_BATCH));
+                StringBuilder query = new StringBuilder(
+                    "SELECT question_id, attempts, correct, median_ms FROM question_stats WHERE question_id IN (");
+                for (int i = 0; i < chunk.size(); i++) {
+                    query.append(i == 0 ? "?" : ",?");
+                }
+                query.append(')');
+                
+                try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            int id = rs.getInt("question_id");
+                            stats.put(id, new DifficultyModel.StoredStats(id, rs.getInt("attempts"),
+                                rs.getInt("correct"), rs.getLong("median_ms")));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new SQLException("Failed to load question statistics: " + e.getMessage(), e);
+        }
+        return stats;
+    }
+    
+    /**
+     * Adds answer counts to the stored statistics in one batch; the median is replaced
+     */
+    public static void addQuestionStats(List<DifficultyModel.StoredStats> deltas) throws SQLException {
+        String upsert = "INSERT INTO question_stats (question_id, attempts, correct, median_ms) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE attempts = attempts + VALUES(attempts), correct = correct + VALUES(correct), " +
+            "median_ms = IF(VALUES(median_ms) < 0, median_ms, VALUES(median_ms))";
+        
+        try (Connection conn = getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(upsert)) {
+                for (DifficultyModel.StoredStats delta : deltas) {
+                    stmt.setInt(1, delta.questionId);
+                    stmt.setInt(2, delta.attempts);
+                    stmt.setInt(3, delta.correct);
+                    stmt.setLong(4, delta.medianMs);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Reads every stored review state of a user
+     */
+    public static List<ReviewScheduler.StoredState> loadReviewStates(String user) throws SQLException {
+        String query = "SELECT question_id, repetitions, interval_days, easiness, lapses, due_at " +
+            "FROM review_state WHERE user_name = ?";
+        List<ReviewScheduler.StoredState> states = new ArrayList<>();
+        
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, user);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    states.add(new ReviewScheduler.StoredState(user, rs.getInt("question_id"),
+                        rs.getInt("repetitions"), rs.getInt("interval_days"), rs.getDouble("easiness"),
+                        rs.getInt("lapses"), rs.getLong("due_at")));
+                }
             }
         } catch (SQLException e) {
-            LOGGER.severe("Error closing database connection: " + e.getMessage());
-        } finally {
-            connection = null;
+            throw new SQLException("Failed to load review states for " + user + ": " + e.getMessage(), e);
+        }
+        return states;
+    }
+    
+    /**
+     * Inserts or replaces review states, in batches of REVIEW_STATE_BATCH rows within one transaction
+     */
+    public static void saveReviewStates(List<ReviewScheduler.StoredState> states) throws SQLException {
+        String upsert = "INSERT INTO review_state (user_name, question_id, repetitions, interval_days, easiness, " +
+            "lapses, due_at) VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "repetitions = VALUES(repetitions), interval_days = VALUES(interval_days), " +
+            "easiness = VALUES(easiness), lapses = VALUES(lapses), due_at = VALUES(due_at)";
+        
+        try (Connection conn = getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(upsert)) {
+                int pending = 0;
+                for (ReviewScheduler.StoredState state : states) {
+                    stmt.setString(1, state.user);
+                    stmt.setInt(2, state.questionId);
+                    stmt.setInt(3, state.repetitions);
+                    stmt.setInt(4, state.intervalDays);
+                    stmt.setDouble(5, state.easiness);
+                    stmt.setInt(6, state.lapses);
+                    stmt.setLong(7, state.dueAt);
+                    stmt.addBatch();
+                    if (++pending == REVIEW_STATE_BATCH) {
+                        stmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    stmt.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Writes the question bank and the attempts history to a snapshot file; returns its size in bytes
+     */
+    public static long exportSnapshot(Path file) throws SQLException, IOException {
+        return exportSnapshot(file, true);
+    }
+    
+    /**
+     * Writes the question bank, and optionally the attempts history, to a snapshot file; returns its size in bytes
+     */
+    public static long exportSnapshot(Path file, boolean includeAttempts) throws SQLException, IOException {
+        long start = System.currentTimeMillis();
+        QuestionSnapshot.Writer writer = new QuestionSnapshot.Writer();
+        String questionQuery = "SELECT id, question, option1, option2, option3, option4, correct_answer, " +
+            "category, difficulty FROM questions ORDER BY id";
+        String attemptQuery = "SELECT user_name, category, score, total, duration_ms, finished_at " +
+            "FROM attempts ORDER BY id";
+        
+        try (Connection conn = getConnection()) {
+            int maxId = 0;
+            int rows = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(questionQuery,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(Integer.MIN_VALUE); // Stream rows instead of buffering the table
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                        maxId = rs.getInt("id");
+                        try {
+                            String category = rs.getString("category");
+                            writer.addQuestion(readQuestion(rs), // Not interned: the rows are dropped once written
+                                category == null ? "" : category, rs.getInt("difficulty"));
+                        } catch (SQLException e) {
+                            LOGGER.warning("Skipping invalid question in snapshot: " + e.getMessage());
+                        }
+                    }
+                }
+            }
+            writer.setWatermark(maxId, rows);
+            if (includeAttempts) {
+                try (PreparedStatement stmt = conn.prepareStatement(attemptQuery,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    stmt.setFetchSize(Integer.MIN_VALUE);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            Timestamp finishedAt = rs.getTimestamp("finished_at");
+                            writer.addAttempt(new AttemptStore.Attempt(rs.getString("user_name"),
+                                rs.getString("category"), rs.getInt("score"), rs.getInt("total"),
+                                rs.getLong("duration_ms"), finishedAt == null ? 0L : finishedAt.getTime()));
+                        }
+                    }
+                } catch (SQLException e) {
+                    if (e.getErrorCode() != 1146) { // Table doesn't exist
+                        throw e;
+                    }
+                    LOGGER.warning("No attempts table; the snapshot holds questions only");
+                }
+            }
+        } catch (SQLException e) {
+            throw new SQLException("Failed to read the question bank for a snapshot: " + e.getMessage(), e);
+        }
+        
+        long bytes = writer.writeTo(file);
+        LOGGER.info(String.format("Wrote snapshot %s in %dms: %d questions, %d attempts, %d strings, %d bytes",
+            file, System.currentTimeMillis() - start, writer.getQuestionCount(), writer.getAttemptCount(),
+            writer.getStringCount(), bytes));
+        return bytes;
+    }
+    
+    /**
+     * Fills the question cache from a snapshot file instead of the database, enabling the cache if needed
+     */
+    public static synchronized boolean loadCacheSnapshot(Path file) throws IOException {
+        if (questionCache == null) {
+            enableQuestionCache(CACHE_REFRESH_INTERVAL_MS, CACHE_MAX_BYTES, CACHE_IDLE_EVICTION_MS);
+        }
+        return questionCache.seed(QuestionSnapshot.open(file));
+    }
+
+    /**
+     * Safely closes the connection pool
+     */
+    public static void closeConnection() {
+        OfflineQuestionStore offline;
+        AttemptStore attempts;
+        synchronized (DatabaseConnector.class) {
+            closing = true;
+            offline = offlineStore;
+            offlineStore = null;
+            attempts = attemptStore;
+            attemptStore = null;
+        }
+        
+        // Outside the class lock, which the attempt writer needs if it has to reach getPool's slow path
+        if (offline != null) {
+            offline.shutdown();
+        }
+        if (attempts != null) {
+            attempts.shutdown(); // Flush queued attempts while the pool is still open
+        }
+        
+        synchronized (DatabaseConnector.class) {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+                LOGGER.info("Database connections closed successfully");
+            }
+            closing = false;
         }
     }
     
@@ -281,18 +882,24 @@ public class DatabaseConnector {
             health.connectionAvailable = testConnection();
             
             if (health.connectionAvailable) {
-                // Test question retrieval
-                health.questionCount = getQuestionCount();
+                // Test question retrieval against the database, not the cache
+                health.questionCount = queryQuestionCount();
                 health.canRetrieveQuestions = health.questionCount > 0;
                 
                 // Test query performance
                 long startTime = System.currentTimeMillis();
-                getQuestions(1);
+                queryQuestions(new QuizSpec(1));
                 health.queryResponseTime = System.currentTimeMillis() - startTime;
                 
                 health.status = "HEALTHY";
             } else {
-                health.status = "CONNECTION_FAILED";
+                if (isOffline()) {
+                    health.status = "OFFLINE";
+                } else if (BREAKER.getState() != CircuitBreaker.State.CLOSED) {
+                    health.status = "CIRCUIT_OPEN";
+                } else {
+                    health.status = "CONNECTION_FAILED";
+                }
             }
             
         } catch (Exception e) {
@@ -300,9 +907,78 @@ public class DatabaseConnector {
             health.lastError = e.getMessage();
         }
         
+        fillPoolMetrics(health);
+        health.breakerState = BREAKER.getState().name();
+        health.breakerFailures = BREAKER.getConsecutiveFailures();
+        health.breakerTrips = BREAKER.getTripCount();
+        health.breakerRejected = BREAKER.getRejectedCount();
+        health.breakerRetryInMs = BREAKER.getRetryInMillis();
+        health.quizzesAssembled = quizzesAssembled.get();
+        health.rowsTransferred = rowsTransferred.get();
+        health.bytesTransferred = bytesTransferred.get();
+        health.questionsDelivered = questionsDelivered.get();
+        
+        QuestionCache cache = questionCache;
+        if (cache != null) {
+            health.cacheEnabled = true;
+            health.cacheHits = cache.getHits();
+            health.cacheMisses = cache.getMisses();
+            health.cacheRefreshes = cache.getRefreshCount();
+            health.cacheLastRefreshMs = cache.getLastRefreshMillis();
+            health.cacheBytes = cache.getApproximateBytes();
+        }
+        fillAttemptMetrics(health);
+        
+        OfflineQuestionStore offline = offlineStore;
+        health.offline = isOffline();
+        if (offline != null) {
+            health.offlineQuestions = offline.getQuestionCount();
+            health.offlineSyncedAt = offline.getSyncedAt();
+            health.offlineServed = offline.getServedCount();
+        }
         return health;
     }
     
+    /**
+     * Puts an in-memory question cache in front of the database
+     */
+    public static synchronized void enableQuestionCache(long refreshIntervalMs, long maxBytes, long idleEvictionMs) {
+        disableQuestionCache();
+        questionCache = new QuestionCache(refreshIntervalMs, maxBytes, idleEvictionMs);
+        LOGGER.info("Question cache enabled (refresh=" + refreshIntervalMs + "ms, maxBytes=" + maxBytes + ")");
+    }
+    
+    public static synchronized void disableQuestionCache() {
+        if (questionCache != null) {
+            questionCache.shutdown();
+            questionCache = null;
+            LOGGER.info("Question cache disabled");
+        }
+    }
+    
+    private static synchronized void fillAttemptMetrics(DatabaseHealth health) {
+        if (attemptStore != null) {
+            health.attemptsQueued = attemptStore.getQueuedCount();
+            health.attemptsWritten = attemptStore.getWrittenCount();
+            health.attemptBatches = attemptStore.getBatchCount();
+            health.attemptsFallback = attemptStore.getFallbackCount();
+            health.attemptsReplayed = attemptStore.getReplayedCount();
+        }
+    }
+    
+    private static synchronized void fillPoolMetrics(DatabaseHealth health) {
+        ConnectionPool connections = pool;
+        if (connections != null) {
+            health.poolActive = connections.getActiveCount();
+            health.poolIdle = connections.getIdleCount();
+            health.poolWaiters = connections.getWaiterCount();
+            health.poolMaxSize = connections.getMaxSize();
+            health.poolLeaks = connections.getLeaksDetected();
+            health.avgBorrowMs = connections.getAverageBorrowMillis();
+            health.maxBorrowMs = connections.getMaxBorrowMillis();
+        }
+    }
+    
     /**
      * Database health status class
      */
@@ -314,11 +990,66 @@ public class DatabaseConnector {
         public String status = "UNKNOWN";
         public String lastError = null;
         
+        // Connection pool metrics
+        public int poolActive = 0;
+        public int poolIdle = 0;
+        public int poolWaiters = 0;
+        public int poolMaxSize = 0;
+        public long poolLeaks = 0;
+        public double avgBorrowMs = 0;
+        public double maxBorrowMs = 0;
+        
+        // Circuit breaker in front of the connection pool
+        public String breakerState = "CLOSED";
+        public int breakerFailures = 0;
+        public long breakerTrips = 0;
+        public long breakerRejected = 0;
+        public long breakerRetryInMs = 0;
+        
+        // Quiz assembly transfer totals
+        public long quizzesAssembled = 0;
+        public long rowsTransferred = 0;
+        public long bytesTransferred = 0;
+        public long questionsDelivered = 0;
+        
+        // Question cache metrics
+        public boolean cacheEnabled = false;
+        public long cacheHits = 0;
+        public long cacheMisses = 0;
+        public long cacheRefreshes = 0;
+        public long cacheLastRefreshMs = 0;
+        public long cacheBytes = 0;
+        
+        // Attempt write-behind metrics
+        public int attemptsQueued = 0;
+        public long attemptsWritten = 0;
+        public long attemptBatches = 0;
+        public long attemptsFallback = 0;
+        public long attemptsReplayed = 0;
+        
+        // Offline question store
+        public boolean offline = false;
+        public int offlineQuestions = 0;
+        public long offlineSyncedAt = 0;
+        public long offlineServed = 0;
+        
         @Override
         public String toString() {
             return String.format(
-                "DatabaseHealth{status='%s', connection=%s, questions=%d, responseTime=%dms, error='%s'}",
-                status, connectionAvailable, questionCount, queryResponseTime, lastError
+                "DatabaseHealth{status='%s', connection=%s, questions=%d, responseTime=%dms, error='%s', " +
+                "pool={active=%d, idle=%d, waiters=%d, max=%d, leaks=%d, borrowAvg=%.2fms, borrowMax=%.2fms}, " +
+                "breaker={state=%s, failures=%d, trips=%d, rejected=%d, retryIn=%dms}, " +
+                "transfer={quizzes=%d, rows=%d, bytes=%d, delivered=%d}, " +
+                "cache={enabled=%s, hits=%d, misses=%d, refreshes=%d, lastRefresh=%dms, bytes=%d}, " +
+                "attempts={queued=%d, written=%d, batches=%d, fallback=%d, replayed=%d}, " +
+                "offline={active=%s, questions=%d, syncedAt=%d, served=%d}}",
+                status, connectionAvailable, questionCount, queryResponseTime, lastError,
+                poolActive, poolIdle, poolWaiters, poolMaxSize, poolLeaks, avgBorrowMs, maxBorrowMs,
+                breakerState, breakerFailures, breakerTrips, breakerRejected, breakerRetryInMs,
+                quizzesAssembled, rowsTransferred, bytesTransferred, questionsDelivered,
+                cacheEnabled, cacheHits, cacheMisses, cacheRefreshes, cacheLastRefreshMs, cacheBytes,
+                attemptsQueued, attemptsWritten, attemptBatches, attemptsFallback, attemptsReplayed,
+                offline, offlineQuestions, offlineSyncedAt, offlineServed
             );
         }
     }
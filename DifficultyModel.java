@@ -0,0 +1,312 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Per-question difficulty estimates, learned from every answer.
+ *
+ * Each question keeps its answer count, correct count and a small histogram
+ * of answer times, all updated in O(1) as answers come in. Difficulty is a
+ * number from 0 (everyone answers quickly and correctly) to 1 (nobody gets
+ * it right): mostly the smoothed failure rate, plus a share for the median
+ * answer time relative to the time limit. Unseen questions start at 0.5.
+ *
+ * When persistent, counts are read lazily from the {@code question_stats}
+ * table before a quiz is played and new answers are added to it in batches
+ * every FLUSH_INTERVAL_MS, as deltas, so several servers can share it.
+ */
+public class DifficultyModel {
+    private static final Logger LOGGER = Logger.getLogger(DifficultyModel.class.getName());
+
+    private static final double PRIOR_DIFFICULTY = 0.5;
+    private static final int PRIOR_WEIGHT = 4;        // Pseudo-answers behind the prior
+    private static final double TIME_WEIGHT = 0.2;    // Share of difficulty from answer time
+    private static final int SEED_SAMPLES = 20;       // Histogram weight given to a stored median
+    private static final long FLUSH_INTERVAL_MS = 30_000;
+
+    // Upper bounds of the answer time histogram buckets; the last one is open-ended
+    private static final long[] BUCKET_UPPER_MS = {
+        500, 1_000, 1_500, 2_000, 3_000, 4_000, 5_000, 6_000, 8_000,
+        10_000, 12_000, 15_000, 20_000, 25_000, 30_000, Long.MAX_VALUE
+    };
+
+    /**
+     * Answer statistics of one question
+     */
+    public static final class Estimate {
+        private final int questionId;
+        private int attempts;
+        private int correct;
+        private final int[] timeBuckets = new int[BUCKET_UPPER_MS.length];
+        private int timedAnswers;
+        private int unsavedAttempts;
+        private int unsavedCorrect;
+        private volatile boolean loaded = false;
+
+        Estimate(int questionId) {
+            this.questionId = questionId;
+        }
+
+        public int getQuestionId() {
+            return questionId;
+        }
+
+        public synchronized int getAttempts() {
+            return attempts;
+        }
+
+        public synchronized int getCorrect() {
+            return correct;
+        }
+
+        /**
+         * Smoothed share of answers that were correct
+         */
+        public synchronized double getCorrectRate() {
+            return (correct + PRIOR_WEIGHT * (1 - PRIOR_DIFFICULTY)) / (attempts + PRIOR_WEIGHT);
+        }
+
+        /**
+         * Median answer time, at bucket resolution, or -1 before any timed answer
+         */
+        public synchronized long getMedianMillis() {
+            if (timedAnswers == 0) {
+                return -1;
+            }
+            int half = (timedAnswers + 1) / 2;
+            int seen = 0;
+            for (int i = 0; i < timeBuckets.length; i++) {
+                seen += timeBuckets[i];
+                if (seen >= half) {
+                    long lower = i == 0 ? 0 : BUCKET_UPPER_MS[i - 1];
+                    long upper = BUCKET_UPPER_MS[i] == Long.MAX_VALUE ? lower : BUCKET_UPPER_MS[i];
+                    return (lower + upper) / 2;
+                }
+            }
+            return -1;
+        }
+
+        synchronized void record(boolean answeredCorrectly, long timeMs) {
+            attempts++;
+            unsavedAttempts++;
+            if (answeredCorrectly) {
+                correct++;
+                unsavedCorrect++;
+            }
+            if (timeMs >= 0) {
+                timeBuckets[bucketOf(timeMs)]++;
+                timedAnswers++;
+            }
+        }
+
+        /**
+         * Adds stored counts to those gathered since start-up, once
+         */
+        synchronized void seed(int storedAttempts, int storedCorrect, long storedMedianMs) {
+            if (loaded) {
+                return;
+            }
+            loaded = true;
+            attempts += storedAttempts;
+            correct += storedCorrect;
+            if (storedMedianMs >= 0) {
+                int samples = Math.min(storedAttempts, SEED_SAMPLES);
+                timeBuckets[bucketOf(storedMedianMs)] += samples;
+                timedAnswers += samples;
+            }
+        }
+
+        /**
+         * Takes the answers not yet written to the store, or null when there are none
+         */
+        synchronized int[] drainUnsaved() {
+            if (unsavedAttempts == 0) {
+                return null;
+            }
+            int[] unsaved = {unsavedAttempts, unsavedCorrect};
+            unsavedAttempts = 0;
+            unsavedCorrect = 0;
+            return unsaved;
+        }
+
+        synchronized void restoreUnsaved(int[] unsaved) {
+            unsavedAttempts += unsaved[0];
+            unsavedCorrect += unsaved[1];
+        }
+    }
+
+    /**
+     * Stored counts of one question, as read from or added to the question_stats table
+     */
+    public static final class StoredStats {
+        public final int questionId;
+        public final int attempts;
+        public final int correct;
+        public final long medianMs;
+
+        public StoredStats(int questionId, int attempts, int correct, long medianMs) {
+            this.questionId = questionId;
+            this.attempts = attempts;
+            this.correct = correct;
+            this.medianMs = medianMs;
+        }
+    }
+
+    private final long timeLimitMs;
+    private final boolean persistent;
+    private final ConcurrentMap<Integer, Estimate> estimates = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * @param timeLimitMs time allowed per question, the scale for answer times
+     * @param persistent  read and write the question_stats table through DatabaseConnector
+     */
+    public DifficultyModel(long timeLimitMs, boolean persistent) {
+        this.timeLimitMs = timeLimitMs;
+        this.persistent = persistent;
+        if (persistent) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "difficulty-stats-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Difficulty of a question from 0 (easy) to 1 (hard)
+     */
+    public double difficultyOf(int questionId) {
+        Estimate estimate = estimates.get(questionId);
+        if (estimate == null) {
+            return PRIOR_DIFFICULTY;
+        }
+        double failure = 1 - estimate.getCorrectRate();
+        long median = estimate.getMedianMillis();
+        double slowness = median < 0 ? PRIOR_DIFFICULTY : Math.min(1.0, (double) median / timeLimitMs);
+        return (1 - TIME_WEIGHT) * failure + TIME_WEIGHT * slowness;
+    }
+
+    /**
+     * Statistics of a question, or null when it was never answered or loaded
+     */
+    public Estimate getEstimate(int questionId) {
+        return estimates.get(questionId);
+    }
+
+    /**
+     * Records one answer; timeMs is -1 when unknown
+     */
+    public void record(int questionId, boolean correct, long timeMs) {
+        estimate(questionId).record(correct, timeMs);
+    }
+
+    /**
+     * Loads stored statistics for the questions not seen yet. Blocks on the
+     * database, so call it where the questions were fetched, not on the EDT.
+     */
+    public void preload(Collection<Question> questions) {
+        if (!persistent) {
+            return;
+        }
+        List<Integer> missing = new ArrayList<>();
+        for (Question question : questions) {
+            Estimate estimate = estimates.get(question.getId());
+            if (question.getId() > 0 && (estimate == null || !estimate.loaded)) {
+                missing.add(question.getId());
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, StoredStats> stored;
+        try {
+            stored = DatabaseConnector.loadQuestionStats(missing);
+        } catch (SQLException e) {
+            LOGGER.warning("Could not load question statistics: " + e.getMessage());
+            return; // Tried again before the next quiz
+        }
+        for (int questionId : missing) {
+            StoredStats stats = stored.get(questionId);
+            if (stats != null) {
+                estimate(questionId).seed(stats.attempts, stats.correct, stats.medianMs);
+            } else {
+                estimate(questionId).seed(0, 0, -1);
+            }
+        }
+    }
+
+    /**
+     * Adds the answers recorded since the last flush to the question_stats table
+     */
+    public void flush() {
+        if (!persistent) {
+            return;
+        }
+        List<Estimate> flushed = new ArrayList<>();
+        List<int[]> deltas = new ArrayList<>();
+        List<StoredStats> rows = new ArrayList<>();
+        for (Estimate estimate : estimates.values()) {
+            int[] unsaved = estimate.drainUnsaved();
+            if (unsaved != null) {
+                flushed.add(estimate);
+                deltas.add(unsaved);
+                rows.add(new StoredStats(estimate.getQuestionId(), unsaved[0], unsaved[1], estimate.getMedianMillis()));
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            DatabaseConnector.addQuestionStats(rows);
+        } catch (SQLException e) {
+            for (int i = 0; i < flushed.size(); i++) {
+                flushed.get(i).restoreUnsaved(deltas.get(i));
+            }
+            LOGGER.warning("Could not save statistics for " + rows.size() + " questions: " + e.getMessage());
+        }
+    }
+
+    public int getTrackedCount() {
+        return estimates.size();
+    }
+
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flush();
+        }
+    }
+
+    private Estimate estimate(int questionId) {
+        Estimate estimate = estimates.get(questionId);
+        if (estimate == null) {
+            Estimate created = new Estimate(questionId);
+            estimate = estimates.putIfAbsent(questionId, created);
+            if (estimate == null) {
+                estimate = created;
+            }
+        }
+        return estimate;
+    }
+
+    private static int bucketOf(long timeMs) {
+        int bucket = 0;
+        while (timeMs > BUCKET_UPPER_MS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,71 @@
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * Pre-rendered rounded gradient for one component.
+ *
+ * The gradient is painted into an image once and only redrawn when the
+ * component's size or colors change (for example on a theme switch), so
+ * repainting the component is a plain image copy.
+ */
+public class GradientCache {
+    private final int arc;
+    private final boolean diagonal;
+    private final Color shadow;
+
+    private BufferedImage image;
+    private int width;
+    private int height;
+    private Color start;
+    private Color end;
+
+    /**
+     * @param arc rounded corner diameter, or -1 for fully rounded ends
+     * @param diagonal gradient runs corner to corner instead of left to right
+     * @param shadow optional overlay drawn offset by two pixels, or null
+     */
+    public GradientCache(int arc, boolean diagonal, Color shadow) {
+        this.arc = arc;
+        this.diagonal = diagonal;
+        this.shadow = shadow;
+    }
+
+    /**
+     * Returns the gradient image for the given size and colors, rebuilding it only when they changed
+     */
+    public BufferedImage get(GraphicsConfiguration config, int width, int height, Color start, Color end) {
+        if (image == null || width != this.width || height != this.height
+                || !start.equals(this.start) || !end.equals(this.end)) {
+            image = render(config, Math.max(1, width), Math.max(1, height), start, end);
+            this.width = width;
+            this.height = height;
+            this.start = start;
+            this.end = end;
+        }
+        return image;
+    }
+
+    private BufferedImage render(GraphicsConfiguration config, int width, int height, Color start, Color end) {
+        BufferedImage rendered = config != null
+            ? config.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+            : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = rendered.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        int corner = arc < 0 ? height : arc;
+        g2d.setPaint(new GradientPaint(0, 0, start, width, diagonal ? height : 0, end));
+        g2d.fillRoundRect(0, 0, width, height, corner, corner);
+        if (shadow != null) {
+            g2d.setColor(shadow);
+            g2d.fillRoundRect(2, 2, width, height, corner, corner);
+        }
+
+        g2d.dispose();
+        return rendered;
+    }
+}
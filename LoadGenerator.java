@@ -0,0 +1,196 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load generator for QuizServer: simulates many players who each start a
+ * quiz, answer every question with a random option and fetch the review.
+ *
+ * Usage: LoadGenerator [baseUrl] [players] [quizzesPerPlayer] [thinkMs]
+ *
+ * To try it locally without a database:
+ *   java QuizApp --server 8080 --demo
+ *   java LoadGenerator http://localhost:8080 2000 3
+ */
+public class LoadGenerator {
+    private static final Pattern SESSION = Pattern.compile("\"session\":\"([^\"]+)\"");
+    private static final Pattern FINISHED = Pattern.compile("\"finished\":(true|false)");
+    private static final Pattern INDEX = Pattern.compile("\"index\":(\\d+)");
+    private static final Pattern OPTION_COUNT = Pattern.compile("\"optionCount\":(\\d+)");
+
+    private final String baseUrl;
+    private final int thinkMs;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong quizzesCompleted = new AtomicLong();
+    private final List<long[]> latencies = new ArrayList<>();
+
+    private LoadGenerator(String baseUrl, int thinkMs) {
+        this.baseUrl = baseUrl;
+        this.thinkMs = thinkMs;
+    }
+
+    /**
+     * Plays the given number of quizzes as one player, recording request latencies
+     */
+    private void play(int quizzes) {
+        long[] samples = new long[16];
+        int count = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int quiz = 0; quiz < quizzes; quiz++) {
+            try {
+                long start = System.nanoTime();
+                String response = post("/api/quiz/start", "timed=false");
+                samples = record(samples, count++, start);
+                String session = find(SESSION, response);
+
+                while ("false".equals(find(FINISHED, response))) {
+                    think();
+                    int index = Integer.parseInt(find(INDEX, response));
+                    int option = random.nextInt(Integer.parseInt(find(OPTION_COUNT, response)));
+                    start = System.nanoTime();
+                    response = post("/api/quiz/answer", "session=" + session + "&question=" + index + "&option=" + option);
+                    samples = record(samples, count++, start);
+                }
+
+                start = System.nanoTime();
+                get("/api/quiz/review?session=" + session);
+                samples = record(samples, count++, start);
+                quizzesCompleted.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                if (failures.incrementAndGet() == 1) {
+                    System.out.println("First failure: " + e);
+                }
+            }
+        }
+
+        synchronized (latencies) {
+            latencies.add(Arrays.copyOf(samples, count));
+        }
+    }
+
+    private long[] record(long[] samples, int index, long startNanos) {
+        requests.incrementAndGet();
+        if (index == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[index] = System.nanoTime() - startNanos;
+        return samples;
+    }
+
+    private void think() {
+        if (thinkMs > 0) {
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(thinkMs + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private String post(String path, String form) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(form.getBytes(StandardCharsets.UTF_8));
+        }
+        return read(connection);
+    }
+
+    private String get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        return read(connection);
+    }
+
+    private static String read(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        InputStream stream = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if (stream != null) {
+            try (InputStream in = stream) {
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    body.write(buffer, 0, read);
+                }
+            }
+        }
+        String text = new String(body.toByteArray(), StandardCharsets.UTF_8);
+        if (status >= 400) {
+            throw new IOException("HTTP " + status + ": " + text);
+        }
+        return text;
+    }
+
+    private static String find(Pattern pattern, String json) {
+        Matcher matcher = pattern.matcher(json);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected response: " + json);
+        }
+        return matcher.group(1);
+    }
+
+    private void report(long elapsedNanos) {
+        int total = 0;
+        for (long[] samples : latencies) {
+            total += samples.length;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (long[] samples : latencies) {
+            System.arraycopy(samples, 0, all, offset, samples.length);
+            offset += samples.length;
+        }
+        Arrays.sort(all);
+
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("Quizzes completed: %d, failed: %d%n", quizzesCompleted.get(), failures.get());
+        System.out.printf("Requests: %d in %.1fs (%.0f req/s)%n", requests.get(), seconds, requests.get() / seconds);
+        if (all.length > 0) {
+            System.out.printf("Latency ms: p50=%.2f p95=%.2f p99=%.2f max=%.2f%n",
+                percentile(all, 0.50), percentile(all, 0.95), percentile(all, 0.99), all[all.length - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int quizzesPerPlayer = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int thinkMs = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        // Keep-alive connections are pooled per host; allow one per simulated player
+        System.setProperty("http.maxConnections", String.valueOf(Math.max(5, players)));
+
+        System.out.printf("Simulating %d players x %d quizzes against %s%n", players, quizzesPerPlayer, baseUrl);
+        LoadGenerator generator = new LoadGenerator(baseUrl, thinkMs);
+        ExecutorService executor = QuizServer.newRequestExecutor("load-player");
+
+        long start = System.nanoTime();
+        for (int i = 0; i < players; i++) {
+            executor.execute(() -> generator.play(quizzesPerPlayer));
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+        generator.report(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,351 @@
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Local read-only copy of the question bank, served while MySQL is unreachable.
+ *
+ * The copy is a QuestionSnapshot file without the attempts section, kept
+ * memory-mapped: its fixed-width columns are the offset index, so question i
+ * is read by position and only the strings of the questions actually drawn
+ * are decoded. Sampling k questions therefore costs O(k) reads of the
+ * mapping, not a copy of the bank on the heap.
+ *
+ * A background thread writes a new copy whenever the questions table's
+ * max(id)/row-count watermark moves, and at least every FULL_SYNC_INTERVAL_MS
+ * to pick up edits. Each copy gets its own file, named after the configured
+ * one with the sync time added (bank-1718000000000.qsnap for bank.qsnap),
+ * because Windows does not let a mapped file be replaced. Older copies are
+ * deleted once nothing maps them. While DatabaseConnector is offline, that is while its
+ * circuit breaker is not closed, the same thread probes MySQL instead so the
+ * breaker closes again once it answers.
+ */
+public class OfflineQuestionStore {
+    private static final Logger LOGGER = Logger.getLogger(OfflineQuestionStore.class.getName());
+
+    private static final long CHECK_INTERVAL_MS = 15_000;
+    private static final long SYNC_INTERVAL_MS = 10 * 60_000;
+    private static final long FULL_SYNC_INTERVAL_MS = 6 * 60 * 60_000L;
+    private static final int MAX_DRAWS_PER_QUESTION = 8; // Random draws per wanted question before scanning
+
+    private static final String WATERMARK_QUERY = "SELECT COALESCE(MAX(id), 0), COUNT(*) FROM questions";
+
+    private final Path file;                             // Base name of the copies
+    private final String prefix;
+    private final String suffix;
+    private final ScheduledExecutorService syncer;
+    private QuestionSnapshot.Reader reader = null;       // Guarded by this
+    private Path current = null;                         // The file reader maps; guarded by this
+    private Map<String, Integer> categoryCounts = null;  // Of the current reader, built on first use
+    private long nextSyncAt = 0;                         // Only touched by the sync thread
+
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong served = new AtomicLong();
+
+    /**
+     * Opens the newest existing copy, if any, and starts keeping it in sync
+     *
+     * @param file base name of the snapshot files holding the copies
+     */
+    public OfflineQuestionStore(Path file) {
+        this.file = file.toAbsolutePath();
+        String name = this.file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        this.prefix = (dot > 0 ? name.substring(0, dot) : name) + "-";
+        this.suffix = dot > 0 ? name.substring(dot) : "";
+        this.syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "offline-store-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.execute(this::open); // Off the caller's thread, which may be the EDT
+        syncer.scheduleWithFixedDelay(this::maintain, 0, CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether there are questions to serve
+     */
+    public synchronized boolean isAvailable() {
+        return reader != null && reader.getQuestionCount() > 0;
+    }
+
+    /**
+     * Draws the questions of a quiz, in random order; fewer when not enough match
+     */
+    public synchronized List<Question> sample(QuizSpec spec) {
+        if (reader == null) {
+            return Collections.emptyList();
+        }
+        int n = reader.getQuestionCount();
+        int count = spec.getCount();
+        List<Question> sampled = new ArrayList<>(Math.min(count, n));
+        Set<Integer> drawn = new HashSet<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        int draws = count * MAX_DRAWS_PER_QUESTION + spec.getExcludedIds().size();
+        for (int i = 0; i < draws && sampled.size() < count && drawn.size() < n; i++) {
+            int index = random.nextInt(n);
+            if (drawn.add(index) && matches(index, spec)) {
+                sampled.add(reader.question(index));
+            }
+        }
+
+        if (sampled.size() < count && drawn.size() < n) {
+            // Narrow filters or a small bank: one pass over the columns for what is left
+            int[] eligible = new int[n - drawn.size()];
+            int available = 0;
+            for (int index = 0; index < n; index++) {
+                if (!drawn.contains(index) && matches(index, spec)) {
+                    eligible[available++] = index;
+                }
+            }
+            for (int i = 0; i < available && sampled.size() < count; i++) {
+                int pick = i + random.nextInt(available - i);
+                int index = eligible[pick];
+                eligible[pick] = eligible[i];
+                sampled.add(reader.question(index));
+            }
+            Collections.shuffle(sampled, random);
+        }
+        served.addAndGet(sampled.size());
+        return sampled;
+    }
+
+    /**
+     * Question count per category in the local copy
+     */
+    public synchronized Map<String, Integer> getCategoryCounts() {
+        if (categoryCounts == null) {
+            Map<String, Integer> counts = new TreeMap<>();
+            if (reader != null) {
+                for (int index = 0; index < reader.getQuestionCount(); index++) {
+                    counts.merge(reader.category(index), 1, Integer::sum);
+                }
+            }
+            categoryCounts = Collections.unmodifiableMap(counts);
+        }
+        return categoryCounts;
+    }
+
+    /**
+     * Writes a new copy when the question bank changed, maps it and deletes the older ones
+     *
+     * @param force rewrite even when the watermark is unchanged
+     * @return whether the copy was rewritten
+     */
+    public boolean sync(boolean force) throws SQLException, IOException {
+        int maxId;
+        int rowCount;
+        try (Connection conn = DatabaseConnector.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(WATERMARK_QUERY)) {
+            rs.next();
+            maxId = rs.getInt(1);
+            rowCount = rs.getInt(2);
+        }
+
+        synchronized (this) {
+            if (!force && reader != null && reader.getMaxId() == maxId && reader.getRowCount() == rowCount
+                    && System.currentTimeMillis() - reader.getCreatedAt() < FULL_SYNC_INTERVAL_MS) {
+                return false;
+            }
+        }
+
+        // Readers keep using the old mapping until it is replaced below
+        Path target = copyFile(nextVersion());
+        DatabaseConnector.exportSnapshot(target, false);
+        QuestionSnapshot.Reader synced = QuestionSnapshot.open(target);
+        synchronized (this) {
+            reader = synced;
+            current = target;
+            categoryCounts = null;
+        }
+        syncs.incrementAndGet();
+        LOGGER.info("Offline question store synced: " + synced.getQuestionCount() + " questions in " + target);
+        deleteOlderCopies(target);
+        return true;
+    }
+
+    public synchronized int getQuestionCount() {
+        return reader == null ? 0 : reader.getQuestionCount();
+    }
+
+    /**
+     * When the local copy was taken from the database, or 0 when there is none
+     */
+    public synchronized long getSyncedAt() {
+        return reader == null ? 0 : reader.getCreatedAt();
+    }
+
+    public long getSyncCount() {
+        return syncs.get();
+    }
+
+    public long getServedCount() {
+        return served.get();
+    }
+
+    /**
+     * The copy being served, or the base name when there is none yet
+     */
+    public synchronized Path getFile() {
+        return current == null ? file : current;
+    }
+
+    public void shutdown() {
+        syncer.shutdownNow();
+    }
+
+    /**
+     * Maps the newest copy left by a previous run, so it can be served before the first sync
+     */
+    private void open() {
+        List<Path> copies = listCopies();
+        copies.sort((a, b) -> Long.compare(versionOf(b), versionOf(a)));
+        if (copies.isEmpty() && Files.exists(file)) {
+            copies.add(file); // Written by a version that replaced a single file
+        }
+        for (Path copy : copies) {
+            try {
+                QuestionSnapshot.Reader existing = QuestionSnapshot.open(copy);
+                synchronized (this) {
+                    if (reader != null) {
+                        return; // A sync got there first
+                    }
+                    reader = existing;
+                    current = copy;
+                }
+                LOGGER.info("Offline question store " + copy + " holds " + existing.getQuestionCount() + " questions");
+                deleteOlderCopies(copy);
+                return;
+            } catch (IOException e) {
+                LOGGER.warning("Ignoring unreadable offline question store " + copy + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private Path copyFile(long version) {
+        return file.resolveSibling(prefix + version + suffix);
+    }
+
+    /**
+     * Version of a copy's file name, or -1 when the file is not a copy
+     */
+    private long versionOf(Path candidate) {
+        String name = candidate.getFileName().toString();
+        if (!name.startsWith(prefix) || !name.endsWith(suffix) || name.length() == prefix.length() + suffix.length()) {
+            return -1;
+        }
+        String digits = name.substring(prefix.length(), name.length() - suffix.length());
+        for (int i = 0; i < digits.length(); i++) {
+            if (!Character.isDigit(digits.charAt(i))) {
+                return -1;
+            }
+        }
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The sync time, moved past the current copy's so two syncs in one millisecond get different files
+     */
+    private long nextVersion() {
+        Path served;
+        synchronized (this) {
+            served = current;
+        }
+        long version = System.currentTimeMillis();
+        return served == null ? version : Math.max(version, versionOf(served) + 1);
+    }
+
+    private List<Path> listCopies() {
+        List<Path> copies = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(file.getParent(), path -> versionOf(path) >= 0)) {
+            for (Path copy : dir) {
+                copies.add(copy);
+            }
+        } catch (IOException e) {
+            LOGGER.warning("Could not list the offline question store copies: " + e.getMessage());
+        }
+        return copies;
+    }
+
+    /**
+     * Deletes every copy but the one being served. A copy that is still mapped
+     * cannot be deleted on Windows; it is retried after the next sync.
+     */
+    private void deleteOlderCopies(Path keep) {
+        List<Path> stale = listCopies();
+        stale.add(file);
+        for (Path copy : stale) {
+            if (copy.equals(keep)) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(copy);
+            } catch (IOException e) {
+                LOGGER.fine("Keeping old offline question store " + copy + " for now: " + e.getMessage());
+            }
+        }
+    }
+
+    private boolean matches(int index, QuizSpec spec) {
+        if (!spec.getExcludedIds().isEmpty() && spec.getExcludedIds().contains(reader.id(index))) {
+            return false;
+        }
+        if (spec.hasDifficultyFilter()) {
+            int difficulty = reader.difficulty(index);
+            if (difficulty < spec.getMinDifficulty() || difficulty > spec.getMaxDifficulty()) {
+                return false;
+            }
+        }
+        return spec.getCategories().isEmpty() || spec.getCategories().contains(reader.category(index));
+    }
+
+    /**
+     * Probes MySQL while offline, otherwise syncs when due
+     */
+    private void maintain() {
+        if (DatabaseConnector.isOffline()) {
+            DatabaseConnector.probeConnection();
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now < nextSyncAt) {
+            return;
+        }
+        try {
+            sync(false);
+            nextSyncAt = now + SYNC_INTERVAL_MS;
+        } catch (SQLException e) {
+            if (!DatabaseConnector.isConnectionFailure(e)) {
+                nextSyncAt = now + SYNC_INTERVAL_MS; // Not an outage: wait for the next round
+            }
+            LOGGER.warning("Could not sync the offline question store: " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            nextSyncAt = now + SYNC_INTERVAL_MS;
+            LOGGER.warning("Could not write the offline question store " + file + ": " + e.getMessage());
+        }
+    }
+}
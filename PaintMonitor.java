@@ -0,0 +1,125 @@
+import java.awt.Window;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import javax.swing.JComponent;
+import javax.swing.RepaintManager;
+
+/**
+ * Repaint manager that measures Swing painting: time spent per frame and
+ * the screen area requested for repaint.
+ *
+ * Install it with {@link #install()} (QuizGUI does so when started with
+ * -Dquiz.paintStats=true) and read the totals, register a Listener, or let
+ * it log a summary every LOG_INTERVAL_FRAMES frames.
+ */
+public class PaintMonitor extends RepaintManager {
+    private static final Logger LOGGER = Logger.getLogger(PaintMonitor.class.getName());
+    private static final int LOG_INTERVAL_FRAMES = 120;
+
+    /**
+     * Receives the measurements of every painted frame
+     */
+    public interface Listener {
+        void onFrame(long paintNanos, long dirtyPixels, int dirtyRegions);
+    }
+
+    private final AtomicLong pendingPixels = new AtomicLong();
+    private final AtomicLong pendingRegions = new AtomicLong();
+    private volatile Listener listener;
+    private volatile boolean logging = false;
+
+    // Totals, only updated on the EDT
+    private long frames;
+    private long totalNanos;
+    private long maxNanos;
+    private long totalPixels;
+
+    /**
+     * Replaces the current repaint manager with a new monitor
+     */
+    public static PaintMonitor install() {
+        PaintMonitor monitor = new PaintMonitor();
+        RepaintManager.setCurrentManager(monitor);
+        return monitor;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void setLogging(boolean logging) {
+        this.logging = logging;
+    }
+
+    @Override
+    public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+        if (w > 0 && h > 0) {
+            pendingPixels.addAndGet((long) w * h);
+            pendingRegions.incrementAndGet();
+        }
+        super.addDirtyRegion(c, x, y, w, h);
+    }
+
+    @Override
+    public void addDirtyRegion(Window window, int x, int y, int w, int h) {
+        if (w > 0 && h > 0) {
+            pendingPixels.addAndGet((long) w * h);
+            pendingRegions.incrementAndGet();
+        }
+        super.addDirtyRegion(window, x, y, w, h);
+    }
+
+    @Override
+    public void paintDirtyRegions() {
+        long pixels = pendingPixels.getAndSet(0);
+        int regions = (int) pendingRegions.getAndSet(0);
+        long start = System.nanoTime();
+        super.paintDirtyRegions();
+        long elapsed = System.nanoTime() - start;
+
+        if (regions == 0) {
+            return;
+        }
+        frames++;
+        totalNanos += elapsed;
+        maxNanos = Math.max(maxNanos, elapsed);
+        totalPixels += pixels;
+
+        Listener current = listener;
+        if (current != null) {
+            current.onFrame(elapsed, pixels, regions);
+        }
+        if (logging && frames % LOG_INTERVAL_FRAMES == 0) {
+            LOGGER.info(toString());
+        }
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public double getAverageFrameMillis() {
+        return frames == 0 ? 0 : totalNanos / 1e6 / frames;
+    }
+
+    public double getMaxFrameMillis() {
+        return maxNanos / 1e6;
+    }
+
+    public long getAverageDirtyPixels() {
+        return frames == 0 ? 0 : totalPixels / frames;
+    }
+
+    public void reset() {
+        frames = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+        totalPixels = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Paint stats: %d frames, avg %.2fms, max %.2fms, avg dirty area %d px",
+            frames, getAverageFrameMillis(), getMaxFrameMillis(), getAverageDirtyPixels());
+    }
+}
@@ -1,46 +1,188 @@
-public class Question {
-    private String questionText;
-    private String[] options;
-    private String correctAnswer;
-    private String userAnswer;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable question template shared by every quiz attempt.
+ *
+ * Per-player state such as option order and the selected answer lives in
+ * QuestionAttempt, so one template can back any number of sessions.
+ * Correct options are stored as a bitmask over option indices, computed once
+ * when the template is built, so scoring never compares option text.
+ */
+public final class Question {
+    // Interned templates by database id; entries go away once unused
+    private static final ConcurrentMap<Integer, TemplateRef> INTERNED = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Question> CLEARED = new ReferenceQueue<>();
+
+    /**
+     * Weak reference that remembers its id, so a cleared entry can be removed from INTERNED
+     */
+    private static final class TemplateRef extends WeakReference<Question> {
+        final int id;
+
+        TemplateRef(Question question) {
+            super(question, CLEARED);
+            this.id = question.id;
+        }
+    }
+
+    private final int id;
+    private final String questionText;
+    private final String[] options;
+    private final int correctMask;
+    private final boolean multiAnswer;
 
     public Question(String questionText, String[] options, String correctAnswer) {
+        this(0, questionText, options, correctAnswer);
+    }
+
+    /**
+     * Creates a single-answer question; every option matching correctAnswer counts as correct
+     */
+    public Question(int id, String questionText, String[] options, String correctAnswer) {
+        this(id, questionText, options, maskOf(options, correctAnswer), false);
+    }
+
+    /**
+     * Creates a question whose correct options are given as a bitmask over option indices
+     */
+    public Question(int id, String questionText, String[] options, int correctMask, boolean multiAnswer) {
+        if (options.length > Integer.SIZE) {
+            throw new IllegalArgumentException("Too many options: " + options.length);
+        }
+        if (correctMask == 0 || (options.length < Integer.SIZE && correctMask >>> options.length != 0)) {
+            throw new IllegalArgumentException("Correct answer must be one of the options");
+        }
+        this.id = id;
         this.questionText = questionText;
-        this.options = options;
-        this.correctAnswer = correctAnswer;
+        this.options = options.clone();
+        this.correctMask = correctMask;
+        this.multiAnswer = multiAnswer;
+    }
+
+    private static int maskOf(String[] options, String correctAnswer) {
+        int mask = 0;
+        for (int i = 0; i < options.length; i++) {
+            if (options[i].equals(correctAnswer)) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the shared template for this question's id, registering it if new or changed
+     */
+    public static Question intern(Question question) {
+        if (question.id <= 0) {
+            return question;
+        }
+        expungeCleared();
+
+        TemplateRef ref = INTERNED.get(question.id);
+        Question existing = ref == null ? null : ref.get();
+        if (existing != null && existing.sameContent(question)) {
+            return existing;
+        }
+
+        INTERNED.put(question.id, new TemplateRef(question));
+        return question;
+    }
+
+    /**
+     * Makes this question the shared template for its id, replacing any earlier
+     * one; used by the question cache, whose templates share their strings
+     */
+    public static Question register(Question question) {
+        if (question.id > 0) {
+            expungeCleared();
+            INTERNED.put(question.id, new TemplateRef(question));
+        }
+        return question;
+    }
+
+    private static void expungeCleared() {
+        Reference<? extends Question> cleared;
+        while ((cleared = CLEARED.poll()) != null) {
+            TemplateRef ref = (TemplateRef) cleared;
+            INTERNED.remove(ref.id, ref); // Unless the id was re-registered since
+        }
+    }
+
+    private boolean sameContent(Question other) {
+        return correctMask == other.correctMask
+            && multiAnswer == other.multiAnswer
+            && questionText.equals(other.questionText)
+            && Arrays.equals(options, other.options);
     }
 
     // Getters
+    public int getId() {
+        return id;
+    }
+
     public String getQuestionText() {
         return questionText;
     }
 
-    public String[] getOptions() {
-        return options;
+    public int getOptionCount() {
+        return options.length;
     }
 
-    public String getCorrectAnswer() {
-        return correctAnswer;
+    public String getOption(int index) {
+        return options[index];
     }
 
-    public String getUserAnswer() {
-        return userAnswer;
+    /**
+     * Returns a copy of the options in their original order
+     */
+    public String[] getOptions() {
+        return options.clone();
     }
 
-    // Setters
-    public void setUserAnswer(String userAnswer) {
-        this.userAnswer = userAnswer;
+    public int getCorrectMask() {
+        return correctMask;
     }
 
-    public void setOptions(String[] options) {
-        this.options = options;
+    public boolean isMultiAnswer() {
+        return multiAnswer;
     }
 
-    public void setCorrectAnswer(String correctAnswer) {
-        this.correctAnswer = correctAnswer;
+    public boolean isCorrectOption(int index) {
+        return (correctMask & (1 << index)) != 0;
     }
 
-    public boolean isCorrect() {
-        return correctAnswer.equals(userAnswer);
+    /**
+     * Returns whether a selection (bitmask over option indices) answers the question
+     */
+    public boolean isCorrectSelection(int selectedMask) {
+        if (multiAnswer) {
+            return selectedMask == correctMask;
+        }
+        // Single answer: any option equal to the correct one counts
+        return Integer.bitCount(selectedMask) == 1 && (selectedMask & correctMask) != 0;
+    }
+
+    /**
+     * Returns the correct option text for display, joining multiple answers
+     */
+    public String getCorrectAnswer() {
+        if (!multiAnswer) {
+            return options[Integer.numberOfTrailingZeros(correctMask)];
+        }
+        StringBuilder answer = new StringBuilder();
+        for (int i = 0; i < options.length; i++) {
+            if (isCorrectOption(i)) {
+                if (answer.length() > 0) {
+                    answer.append(", ");
+                }
+                answer.append(options[i]);
+            }
+        }
+        return answer.toString();
     }
-} 
\ No newline at end of file
+}
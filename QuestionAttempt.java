@@ -0,0 +1,247 @@
+import java.util.Random;
+
+/**
+ * One player's view of a shared Question template: the order in which the
+ * options are shown and the option the player picked.
+ *
+ * Display slots map to template options through a small permutation array,
+ * so the template itself is never copied or modified. The selection is kept
+ * as a bitmask over template option indices and scored against the
+ * template's precomputed correct mask.
+ *
+ * Questions with up to five options draw their order from precomputed
+ * tables of every permutation (24 for the usual four options), shared
+ * read-only by all attempts, so shuffling allocates nothing but the attempt.
+ */
+public class QuestionAttempt {
+    private static final int MAX_TABLE_OPTIONS = 5;
+    // PERMUTATIONS[n] holds all orderings of n options in lexicographic order
+    private static final byte[][][] PERMUTATIONS = buildPermutationTables();
+
+    /**
+     * How the player left this question
+     */
+    public enum AnswerState {
+        UNANSWERED,
+        ANSWERED,
+        SKIPPED,
+        TIMED_OUT
+    }
+
+    private final Question question;
+    private final byte[] permutation; // display slot -> template option index
+    private int selectedMask = 0;     // template option indices
+    private AnswerState state = AnswerState.UNANSWERED;
+    private long timeToAnswerMs = -1;
+
+    /**
+     * Creates an attempt with the given display order; the array is kept, not
+     * copied, and must not be modified afterwards
+     */
+    public QuestionAttempt(Question question, byte[] permutation) {
+        if (permutation.length != question.getOptionCount()) {
+            throw new IllegalArgumentException("Permutation size " + permutation.length +
+                " does not match option count " + question.getOptionCount());
+        }
+        this.question = question;
+        this.permutation = permutation;
+    }
+
+    /**
+     * Creates an attempt showing the options in their original order
+     */
+    public static QuestionAttempt inOrder(Question question) {
+        int optionCount = question.getOptionCount();
+        if (optionCount <= MAX_TABLE_OPTIONS) {
+            return new QuestionAttempt(question, PERMUTATIONS[optionCount][0]);
+        }
+        return new QuestionAttempt(question, identity(optionCount));
+    }
+
+    /**
+     * Creates an attempt with the options in random order
+     */
+    public static QuestionAttempt shuffled(Question question, Random random) {
+        int optionCount = question.getOptionCount();
+        if (optionCount <= MAX_TABLE_OPTIONS) {
+            byte[][] table = PERMUTATIONS[optionCount];
+            return new QuestionAttempt(question, table[random.nextInt(table.length)]);
+        }
+
+        // Fisher-Yates over a primitive array for unusually long option lists
+        byte[] permutation = identity(optionCount);
+        for (int i = permutation.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            byte tmp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = tmp;
+        }
+        return new QuestionAttempt(question, permutation);
+    }
+
+    private static byte[] identity(int size) {
+        byte[] permutation = new byte[size];
+        for (int i = 0; i < size; i++) {
+            permutation[i] = (byte) i;
+        }
+        return permutation;
+    }
+
+    private static byte[][][] buildPermutationTables() {
+        byte[][][] tables = new byte[MAX_TABLE_OPTIONS + 1][][];
+        for (int n = 0; n <= MAX_TABLE_OPTIONS; n++) {
+            int factorial = 1;
+            for (int i = 2; i <= n; i++) {
+                factorial *= i;
+            }
+            tables[n] = new byte[factorial][];
+            fillPermutations(tables[n], new byte[n], 0, 0, new int[1]);
+        }
+        return tables;
+    }
+
+    private static void fillPermutations(byte[][] table, byte[] prefix, int length, int usedMask, int[] next) {
+        if (length == prefix.length) {
+            table[next[0]++] = prefix.clone();
+            return;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((usedMask & (1 << i)) == 0) {
+                prefix[length] = (byte) i;
+                fillPermutations(table, prefix, length + 1, usedMask | (1 << i), next);
+            }
+        }
+    }
+
+    public Question getQuestion() {
+        return question;
+    }
+
+    public String getQuestionText() {
+        return question.getQuestionText();
+    }
+
+    public int getOptionCount() {
+        return permutation.length;
+    }
+
+    /**
+     * Returns the option shown in the given display slot
+     */
+    public String getOption(int displayIndex) {
+        return question.getOption(permutation[displayIndex]);
+    }
+
+    /**
+     * Returns whether the option in the given display slot is a correct one
+     */
+    public boolean isCorrectOption(int displayIndex) {
+        return question.isCorrectOption(permutation[displayIndex]);
+    }
+
+    public String getCorrectAnswer() {
+        return question.getCorrectAnswer();
+    }
+
+    /**
+     * Returns the display slot of the correct option (the first one for multi-answer questions)
+     */
+    public int getCorrectIndex() {
+        for (int i = 0; i < permutation.length; i++) {
+            if (question.isCorrectOption(permutation[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Records the display slot the player picked, replacing any earlier pick
+     */
+    public void select(int displayIndex) {
+        if (displayIndex < 0 || displayIndex >= permutation.length) {
+            throw new IllegalArgumentException("Option index out of range: " + displayIndex);
+        }
+        selectedMask = 1 << permutation[displayIndex];
+        state = AnswerState.ANSWERED;
+    }
+
+    /**
+     * Adds a display slot to the selection of a multi-answer question
+     */
+    public void toggle(int displayIndex) {
+        if (displayIndex < 0 || displayIndex >= permutation.length) {
+            throw new IllegalArgumentException("Option index out of range: " + displayIndex);
+        }
+        selectedMask ^= 1 << permutation[displayIndex];
+        state = selectedMask == 0 ? AnswerState.UNANSWERED : AnswerState.ANSWERED;
+    }
+
+    /**
+     * Leaves the question without an answer in the given state
+     */
+    public void markUnanswered(AnswerState reason) {
+        if (reason == AnswerState.ANSWERED) {
+            throw new IllegalArgumentException("Use select() to answer a question");
+        }
+        selectedMask = 0;
+        state = reason;
+    }
+
+    /**
+     * Records how long the question was open before it was answered or timed out
+     */
+    void setTimeToAnswerMillis(long millis) {
+        this.timeToAnswerMs = millis;
+    }
+
+    /**
+     * Milliseconds from showing the question to answering it (or timing out), or -1 if never shown
+     */
+    public long getTimeToAnswerMillis() {
+        return timeToAnswerMs;
+    }
+
+    public AnswerState getState() {
+        return state;
+    }
+
+    public boolean isAnswered() {
+        return state == AnswerState.ANSWERED;
+    }
+
+    /**
+     * Returns the first selected display slot, or -1 if unanswered
+     */
+    public int getSelectedIndex() {
+        for (int i = 0; i < permutation.length; i++) {
+            if ((selectedMask & (1 << permutation[i])) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the text of the selected option(s), or null if unanswered
+     */
+    public String getSelectedAnswer() {
+        if (!isAnswered()) {
+            return null;
+        }
+        StringBuilder answer = new StringBuilder();
+        for (int i = 0; i < permutation.length; i++) {
+            if ((selectedMask & (1 << permutation[i])) != 0) {
+                if (answer.length() > 0) {
+                    answer.append(", ");
+                }
+                answer.append(getOption(i));
+            }
+        }
+        return answer.toString();
+    }
+
+    public boolean isCorrect() {
+        return isAnswered() && question.isCorrectSelection(selectedMask);
+    }
+}
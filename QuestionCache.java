@@ -0,0 +1,395 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Process-wide in-memory copy of the question bank.
+ *
+ * Questions are held as immutable, interned Question templates whose text
+ * and option strings are deduplicated across the bank; they are handed out
+ * without copying because per-player state lives in QuestionAttempt. Once
+ * the refresh interval has passed, the next read triggers a background
+ * refresh against a max(id)/row-count watermark: new rows are appended
+ * incrementally and any other change forces a full reload.
+ */
+public class QuestionCache {
+    private static final Logger LOGGER = Logger.getLogger(QuestionCache.class.getName());
+
+    private static final String COLUMNS =
+        "id, question, option1, option2, option3, option4, correct_answer";
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE; // MySQL row-by-row streaming
+
+    private final long refreshIntervalMs;
+    private final long maxBytes;
+    private final long idleEvictionMs;
+
+    private volatile Snapshot snapshot = null;
+    private volatile long lastAccess = System.currentTimeMillis();
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final ExecutorService refresher;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private volatile long lastRefreshMs = 0;
+
+    /**
+     * @param refreshIntervalMs how long a snapshot is served before it is revalidated
+     * @param maxBytes          approximate memory limit; larger banks are not cached
+     * @param idleEvictionMs    drop the snapshot after this long without reads (0 = never)
+     */
+    public QuestionCache(long refreshIntervalMs, long maxBytes, long idleEvictionMs) {
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.maxBytes = maxBytes;
+        this.idleEvictionMs = idleEvictionMs;
+        this.refresher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "question-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Serves a quiz from memory, or returns null when the cache cannot serve it
+     */
+    public List<Question> sample(QuizSpec spec) throws SQLException {
+        if (!spec.getCategories().isEmpty() || spec.hasDifficultyFilter()) {
+            misses.incrementAndGet();
+            return null; // Served by the sampler's category index instead
+        }
+
+        Snapshot current = current();
+        if (current == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return current.sample(spec.getCount(), spec.getExcludedIds());
+    }
+
+    /**
+     * Returns the cached row count, or -1 when the cache cannot answer
+     */
+    public int getQuestionCount() throws SQLException {
+        Snapshot current = current();
+        if (current == null) {
+            misses.incrementAndGet();
+            return -1;
+        }
+        hits.incrementAndGet();
+        return current.size();
+    }
+
+    /**
+     * Returns a usable snapshot, loading or scheduling a refresh as needed
+     */
+    private Snapshot current() throws SQLException {
+        long now = System.currentTimeMillis();
+        Snapshot current = snapshot;
+
+        if (current != null && idleEvictionMs > 0 && now - lastAccess > idleEvictionMs) {
+            LOGGER.info("Evicting question cache after " + (now - lastAccess) + "ms idle");
+            snapshot = null;
+            current = null;
+        }
+        lastAccess = now;
+
+        if (current == null) {
+            current = refresh(null);
+        } else if (now - current.loadedAt > refreshIntervalMs && refreshing.compareAndSet(false, true)) {
+            Snapshot stale = current;
+            refresher.execute(() -> {
+                try {
+                    refresh(stale);
+                } catch (Exception e) {
+                    LOGGER.warning("Background question cache refresh failed: " + e.getMessage());
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+
+        return current != null && current.complete ? current : null;
+    }
+
+    /**
+     * Brings the snapshot up to date with the database
+     */
+    private synchronized Snapshot refresh(Snapshot previous) throws SQLException {
+        if (previous == null && snapshot != null) {
+            return snapshot; // Loaded by another caller while we waited
+        }
+
+        long start = System.nanoTime();
+        Snapshot updated;
+        boolean changed = true;
+
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            int maxId;
+            int count;
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT MAX(id), COUNT(*) FROM questions");
+                 ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                maxId = rs.getInt(1);
+                count = rs.getInt(2);
+            }
+
+            if (previous != null && previous.maxId == maxId && previous.rowCount == count) {
+                updated = previous.touch();
+                changed = false;
+            } else if (previous != null && previous.complete && maxId > previous.maxId) {
+                // Rows were appended; only read the new ones
+                updated = load(conn, previous, previous.maxId);
+                if (updated.rowCount != count) {
+                    LOGGER.info("Question cache watermark mismatch, reloading fully");
+                    updated = load(conn, null, 0);
+                }
+            } else {
+                updated = load(conn, null, 0);
+            }
+        }
+
+        if (previous != null && changed) {
+            DatabaseConnector.notifyQuestionBankChanged();
+        }
+
+        snapshot = updated;
+        lastRefreshMs = (System.nanoTime() - start) / 1_000_000;
+        refreshes.incrementAndGet();
+        LOGGER.info(String.format("Question cache refreshed in %dms: %d questions, ~%d bytes%s",
+            lastRefreshMs, updated.size(), updated.bytes, updated.complete ? "" : " (over limit, not serving)"));
+        return updated;
+    }
+
+    /**
+     * Streams rows with id greater than afterId, appending them to base
+     */
+    private Snapshot load(Connection conn, Snapshot base, int afterId) throws SQLException {
+        Builder builder = new Builder(base);
+        String query = "SELECT " + COLUMNS + " FROM questions WHERE id > ? ORDER BY id";
+
+        try (PreparedStatement stmt = conn.prepareStatement(query,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setInt(1, afterId);
+            stmt.setFetchSize(STREAMING_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    builder.rowCount++;
+                    builder.maxId = rs.getInt("id");
+                    try {
+                        builder.add(DatabaseConnector.readQuestion(rs)); // Interned once its strings are shared
+                    } catch (SQLException e) {
+                        LOGGER.warning("Skipping invalid question in cache load: " + e.getMessage());
+                    }
+                    if (builder.bytes > maxBytes) {
+                        builder.complete = false;
+                        // Drain without storing so the connection can be reused
+                        while (rs.next()) {
+                            builder.rowCount++;
+                            builder.maxId = rs.getInt("id");
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Starts from the questions of a snapshot file instead of querying the
+     * database. The snapshot's id watermark is revalidated like any other at
+     * the next refresh, so rows added since it was written are read then.
+     * The templates are shared through this cache only, not interned, which
+     * would cost more than reading the file.
+     *
+     * @return false when the bank is over the memory limit and was not loaded
+     */
+    public synchronized boolean seed(QuestionSnapshot.Reader source) {
+        long start = System.nanoTime();
+        source.decodeAll();
+        Question[] questions = new Question[source.getQuestionCount()];
+        long bytes = 0;
+        for (int i = 0; i < questions.length; i++) {
+            questions[i] = source.question(i);
+            // Template object plus its options array; strings are counted by the reader
+            bytes += 32 + 16 + 8L * questions[i].getOptionCount();
+        }
+        bytes += source.getDecodedStringBytes();
+        if (bytes > maxBytes) {
+            LOGGER.info("Question snapshot needs ~" + bytes + " bytes, over the cache limit; not loaded");
+            return false;
+        }
+
+        snapshot = new Snapshot(questions, source.getMaxId(), source.getRowCount(), bytes, true,
+            System.currentTimeMillis());
+        lastRefreshMs = (System.nanoTime() - start) / 1_000_000;
+        LOGGER.info(String.format("Question cache loaded from snapshot in %dms: %d questions, ~%d bytes",
+            lastRefreshMs, questions.length, bytes));
+        return true;
+    }
+
+    /**
+     * Drops the snapshot; the next read reloads it
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    public void shutdown() {
+        refresher.shutdownNow();
+        snapshot = null;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    public long getLastRefreshMillis() {
+        return lastRefreshMs;
+    }
+
+    public long getApproximateBytes() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.bytes;
+    }
+
+    /**
+     * Immutable copy of the question bank made of shared Question templates
+     */
+    private static class Snapshot {
+        final Question[] questions;
+        final int maxId;    // Highest id scanned
+        final int rowCount; // Rows scanned, including invalid ones that were skipped
+        final long bytes;
+        final boolean complete;
+        final long loadedAt;
+
+        Snapshot(Question[] questions, int maxId, int rowCount, long bytes, boolean complete, long loadedAt) {
+            this.questions = questions;
+            this.maxId = maxId;
+            this.rowCount = rowCount;
+            this.bytes = bytes;
+            this.complete = complete;
+            this.loadedAt = loadedAt;
+        }
+
+        int size() {
+            return questions.length;
+        }
+
+        Snapshot touch() {
+            return new Snapshot(questions, maxId, rowCount, bytes, complete, System.currentTimeMillis());
+        }
+
+        /**
+         * Draws count distinct questions whose ids are not excluded
+         */
+        List<Question> sample(int count, Set<Integer> excludedIds) {
+            int available = size() - excludedIds.size();
+            List<Question> sampled = new ArrayList<>(Math.min(count, Math.max(available, 0)));
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            if (available <= count * 2) {
+                // Small pool: shuffle all eligible questions
+                List<Question> eligible = new ArrayList<>();
+                for (Question question : questions) {
+                    if (!excludedIds.contains(question.getId())) {
+                        eligible.add(question);
+                    }
+                }
+                Collections.shuffle(eligible, random);
+                return new ArrayList<>(eligible.subList(0, Math.min(count, eligible.size())));
+            }
+
+            Set<Integer> picked = new HashSet<>();
+            while (sampled.size() < count) {
+                int index = random.nextInt(size());
+                if (!excludedIds.contains(questions[index].getId()) && picked.add(index)) {
+                    sampled.add(questions[index]);
+                }
+            }
+            return sampled;
+        }
+    }
+
+    /**
+     * Accumulates rows into a new snapshot, sharing equal strings
+     */
+    private static class Builder {
+        private final Map<String, String> strings = new HashMap<>();
+        private final List<Question> questions = new ArrayList<>();
+        int maxId = 0;
+        int rowCount = 0;
+        long bytes = 0;
+        boolean complete = true;
+
+        Builder(Snapshot base) {
+            if (base != null) {
+                // Already accounted for in base.bytes
+                for (Question question : base.questions) {
+                    questions.add(question);
+                    remember(question.getQuestionText());
+                    for (int o = 0; o < question.getOptionCount(); o++) {
+                        remember(question.getOption(o));
+                    }
+                }
+                maxId = base.maxId;
+                rowCount = base.rowCount;
+                bytes = base.bytes;
+            }
+        }
+
+        void add(Question question) {
+            String[] options = new String[question.getOptionCount()];
+            for (int o = 0; o < options.length; o++) {
+                options[o] = share(question.getOption(o));
+            }
+            // Replaces any template interned elsewhere, so quizzes from the database share these strings too
+            questions.add(Question.register(new Question(question.getId(), share(question.getQuestionText()),
+                options, question.getCorrectMask(), question.isMultiAnswer())));
+            // Template object plus its options array
+            bytes += 32 + 16 + 8L * options.length;
+        }
+
+        private void remember(String value) {
+            strings.put(value, value);
+        }
+
+        private String share(String value) {
+            String shared = strings.get(value);
+            if (shared == null) {
+                strings.put(value, value);
+                // Rough String footprint: header plus character data
+                bytes += 40 + 2L * value.length();
+                shared = value;
+            }
+            return shared;
+        }
+
+        Snapshot build() {
+            return new Snapshot(questions.toArray(new Question[0]), maxId, rowCount, bytes, complete,
+                System.currentTimeMillis());
+        }
+    }
+}
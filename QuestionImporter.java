@@ -0,0 +1,806 @@
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Streams a CSV or JSON question export into the questions table.
+ *
+ * Records are parsed one at a time, so memory use does not depend on the
+ * size of the file. Rows are validated with the same rules as rows read
+ * back by DatabaseConnector, then inserted ROWS_PER_STATEMENT at a time with
+ * multi-row INSERTs, one transaction per chunk of records. Each chunk's
+ * transaction also advances the file's row in {@code import_progress}, so an
+ * interrupted import resumes after the last committed chunk without loading
+ * any record twice.
+ *
+ * CSV files need a header row naming the columns of the questions table
+ * (question, option1..option4, correct_answer and optionally category and
+ * difficulty). JSON files hold either one array of objects or one object per
+ * line, with the same keys; the options may also be given as an "options"
+ * array. QuestionSnapshot files (.qsnap) are read through their mapping,
+ * which restores a snapshot's bank into another database.
+ *
+ * Usage: QuizApp --import file [--format csv|json|snapshot] [--chunk rows] [--restart]
+ */
+public class QuestionImporter {
+    private static final Logger LOGGER = Logger.getLogger(QuestionImporter.class.getName());
+
+    private static final int ROWS_PER_STATEMENT = 500;
+    private static final int DEFAULT_CHUNK_RECORDS = 10_000;
+    private static final int READ_BUFFER_CHARS = 1 << 20;
+    private static final int MAX_REPORTED_REJECTS = 20;
+    private static final int OPTION_COUNT = 4;
+    private static final String DEFAULT_CATEGORY = "general";
+    private static final int DEFAULT_DIFFICULTY = 2;
+
+    // Column limits of the questions table; longer values would fail the whole chunk
+    private static final int MAX_QUESTION_BYTES = 65_535;
+    private static final int MAX_OPTION_CHARS = 255;
+    private static final int MAX_CATEGORY_CHARS = 64;
+
+    private static final String INSERT_PREFIX = "INSERT INTO questions " +
+        "(question, option1, option2, option3, option4, correct_answer, category, difficulty) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS_PER_ROW = 8;
+
+    public enum Format {
+        CSV, JSON, SNAPSHOT;
+
+        /**
+         * Guesses the format from the file extension; anything but .json, .jsonl, .ndjson and .qsnap is CSV
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".qsnap")) {
+                return SNAPSHOT;
+            }
+            return name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson") ? JSON : CSV;
+        }
+    }
+
+    /**
+     * Totals of one import run
+     */
+    public static class Report {
+        public long recordsRead = 0;
+        public long recordsSkipped = 0; // Committed by an earlier, interrupted run
+        public long rowsInserted = 0;
+        public long rowsRejected = 0;
+        public long chunks = 0;
+        public long bytesRead = 0;
+        public long elapsedMs = 0;
+        public boolean alreadyImported = false;
+
+        public double getRowsPerSecond() {
+            return elapsedMs == 0 ? 0 : rowsInserted * 1000.0 / elapsedMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "ImportReport{records=%d, skipped=%d, inserted=%d, rejected=%d, chunks=%d, " +
+                "bytes=%d, elapsed=%dms, rate=%.0f rows/s, %.1f MB/s}",
+                recordsRead, recordsSkipped, rowsInserted, rowsRejected, chunks, bytesRead, elapsedMs,
+                getRowsPerSecond(), elapsedMs == 0 ? 0 : bytesRead / 1048.576 / elapsedMs);
+        }
+    }
+
+    /**
+     * A validated row, ready to insert
+     */
+    private static final class Row {
+        final Question question;
+        final String category;
+        final int difficulty;
+
+        Row(Question question, String category, int difficulty) {
+            this.question = question;
+            this.category = category;
+            this.difficulty = difficulty;
+        }
+    }
+
+    /**
+     * Stored progress of one source file
+     */
+    private static final class Progress {
+        final String fingerprint;
+        final long records;
+        final long inserted;
+        final boolean finished;
+
+        Progress(String fingerprint, long records, long inserted, boolean finished) {
+            this.fingerprint = fingerprint;
+            this.records = records;
+            this.inserted = inserted;
+            this.finished = finished;
+        }
+    }
+
+    /**
+     * Reads one record at a time as column name to value; JSON arrays become lists
+     */
+    interface RecordReader extends AutoCloseable {
+        Map<String, Object> next() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private final Path file;
+    private final Format format;
+    private final int chunkRecords;
+    private final boolean restart;
+
+    public QuestionImporter(Path file) {
+        this(file, Format.of(file), DEFAULT_CHUNK_RECORDS, false);
+    }
+
+    /**
+     * @param chunkRecords records per transaction
+     * @param restart      ignore the progress of an earlier run and import the whole file
+     */
+    public QuestionImporter(Path file, Format format, int chunkRecords, boolean restart) {
+        if (chunkRecords <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive, got: " + chunkRecords);
+        }
+        this.file = file;
+        this.format = format;
+        this.chunkRecords = chunkRecords;
+        this.restart = restart;
+    }
+
+    /**
+     * Imports the file, resuming an interrupted run of the same file unless restarting
+     */
+    public Report run() throws IOException, SQLException {
+        String source = file.toAbsolutePath().normalize().toString();
+        String fingerprint = Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis();
+        Report report = new Report();
+        long start = System.currentTimeMillis();
+
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            long resumeAfter = 0;
+            long insertedBefore = 0;
+            if (!restart) {
+                Progress progress = readProgress(conn, source);
+                if (progress != null) {
+                    if (!fingerprint.equals(progress.fingerprint)) {
+                        throw new IOException(file + " changed since it was last imported; " +
+                            "use --restart to import it from the start");
+                    }
+                    if (progress.finished) {
+                        LOGGER.info(file + " was already imported (" + progress.inserted +
+                            " rows); use --restart to import it again");
+                        report.alreadyImported = true;
+                        return report;
+                    }
+                    resumeAfter = progress.records;
+                    insertedBefore = progress.inserted;
+                    LOGGER.info("Resuming import of " + file + " after record " + resumeAfter);
+                }
+            }
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            CountingInputStream counter = new CountingInputStream(Files.newInputStream(file));
+            long chunkStart = resumeAfter; // Records up to here are committed
+            try (RecordReader reader = open(counter);
+                 PreparedStatement fullInsert = conn.prepareStatement(insertSql(ROWS_PER_STATEMENT))) {
+                List<Row> chunk = new ArrayList<>(Math.min(chunkRecords, 100_000));
+                Map<String, Object> record;
+                while ((record = reader.next()) != null) {
+                    report.recordsRead++;
+                    if (report.recordsRead <= resumeAfter) {
+                        report.recordsSkipped++;
+                        continue;
+                    }
+
+                    Row row = toRow(record, report.recordsRead, report);
+                    if (row != null) {
+                        chunk.add(row);
+                    }
+                    if (report.recordsRead - chunkStart == chunkRecords) {
+                        commitChunk(conn, fullInsert, chunk, source, fingerprint, report, insertedBefore, false);
+                        chunkStart = report.recordsRead;
+                        report.bytesRead = counter.count;
+                        logProgress(report, start);
+                    }
+                }
+                commitChunk(conn, fullInsert, chunk, source, fingerprint, report, insertedBefore, true);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw new SQLException("Import of " + file + " stopped after record " + chunkStart +
+                    "; run it again to resume: " + e.getMessage(), e);
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            report.bytesRead = counter.count;
+        } finally {
+            report.elapsedMs = System.currentTimeMillis() - start;
+            if (report.rowsInserted > 0) {
+                DatabaseConnector.notifyQuestionBankChanged();
+            }
+        }
+        LOGGER.info("Imported " + file + ": " + report);
+        return report;
+    }
+
+    /**
+     * Inserts the chunk's rows and advances the progress row in one transaction
+     */
+    private void commitChunk(Connection conn, PreparedStatement fullInsert, List<Row> chunk, String source,
+                             String fingerprint, Report report, long insertedBefore, boolean finished)
+            throws SQLException {
+        int from = 0;
+        while (chunk.size() - from >= ROWS_PER_STATEMENT) {
+            bindRows(fullInsert, chunk, from, ROWS_PER_STATEMENT);
+            fullInsert.addBatch();
+            from += ROWS_PER_STATEMENT;
+        }
+        if (from > 0) {
+            fullInsert.executeBatch();
+        }
+        if (from < chunk.size()) {
+            int rest = chunk.size() - from;
+            try (PreparedStatement tail = conn.prepareStatement(insertSql(rest))) {
+                bindRows(tail, chunk, from, rest);
+                tail.executeUpdate();
+            }
+        }
+
+        long inserted = insertedBefore + report.rowsInserted + chunk.size();
+        writeProgress(conn, source, fingerprint, report.recordsRead, inserted, finished);
+        conn.commit();
+
+        report.rowsInserted += chunk.size();
+        report.chunks++;
+        chunk.clear();
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDERS.length() + 2));
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+        }
+        return sql.toString();
+    }
+
+    private static void bindRows(PreparedStatement stmt, List<Row> rows, int from, int count) throws SQLException {
+        int index = 1;
+        for (int i = from; i < from + count; i++) {
+            Row row = rows.get(i);
+            stmt.setString(index++, row.question.getQuestionText());
+            for (int option = 0; option < OPTION_COUNT; option++) {
+                stmt.setString(index++, option < row.question.getOptionCount() ? row.question.getOption(option) : "");
+            }
+            stmt.setString(index++, row.question.getCorrectAnswer());
+            stmt.setString(index++, row.category);
+            stmt.setInt(index++, row.difficulty);
+        }
+        if (index != count * COLUMNS_PER_ROW + 1) {
+            throw new IllegalStateException("Bound " + (index - 1) + " parameters for " + count + " rows");
+        }
+    }
+
+    /**
+     * Validates a record; rejected records are counted and the first few logged
+     */
+    private static Row toRow(Map<String, Object> record, long number, Report report) {
+        try {
+            String[] options = new String[OPTION_COUNT];
+            Object list = record.get("options");
+            if (list instanceof List) {
+                List<?> values = (List<?>) list;
+                if (values.size() > OPTION_COUNT) {
+                    throw new SQLException("More than " + OPTION_COUNT + " options");
+                }
+                for (int i = 0; i < values.size(); i++) {
+                    options[i] = values.get(i) == null ? null : values.get(i).toString();
+                }
+            } else {
+                for (int i = 0; i < OPTION_COUNT; i++) {
+                    options[i] = text(record, "option" + (i + 1));
+                }
+            }
+
+            Question question = DatabaseConnector.validateQuestion((int) Math.min(number, Integer.MAX_VALUE),
+                text(record, "question"), options, text(record, "correct_answer"));
+            if (question.getQuestionText().getBytes(StandardCharsets.UTF_8).length > MAX_QUESTION_BYTES) {
+                throw new SQLException("Question text is longer than " + MAX_QUESTION_BYTES + " bytes");
+            }
+            for (int i = 0; i < question.getOptionCount(); i++) {
+                if (question.getOption(i).length() > MAX_OPTION_CHARS) {
+                    throw new SQLException("Option " + (i + 1) + " is longer than " + MAX_OPTION_CHARS + " characters");
+                }
+            }
+
+            String category = text(record, "category");
+            category = category == null || category.trim().isEmpty() ? DEFAULT_CATEGORY : category.trim();
+            if (category.length() > MAX_CATEGORY_CHARS) {
+                throw new SQLException("Category is longer than " + MAX_CATEGORY_CHARS + " characters");
+            }
+
+            String difficultyText = text(record, "difficulty");
+            int difficulty = DEFAULT_DIFFICULTY;
+            if (difficultyText != null && !difficultyText.trim().isEmpty()) {
+                try {
+                    difficulty = Integer.parseInt(difficultyText.trim());
+                } catch (NumberFormatException e) {
+                    throw new SQLException("Difficulty is not a number: " + difficultyText);
+                }
+                if (difficulty < 1 || difficulty > 3) {
+                    throw new SQLException("Difficulty must be 1, 2 or 3, got: " + difficulty);
+                }
+            }
+            return new Row(question, category, difficulty);
+
+        } catch (SQLException e) {
+            report.rowsRejected++;
+            if (report.rowsRejected <= MAX_REPORTED_REJECTS) {
+                LOGGER.warning("Skipping record " + number + ": " + e.getMessage());
+            } else if (report.rowsRejected == MAX_REPORTED_REJECTS + 1) {
+                LOGGER.warning("More records rejected; only the total is reported from here on");
+            }
+            return null;
+        }
+    }
+
+    private static String text(Map<String, Object> record, String column) {
+        Object value = record.get(column);
+        return value == null ? null : value.toString();
+    }
+
+    private void logProgress(Report report, long start) {
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        LOGGER.info(String.format("%d records read, %d rows inserted, %d rejected (%.0f rows/s, %.1f MB/s)",
+            report.recordsRead, report.rowsInserted, report.rowsRejected,
+            report.rowsInserted * 1000.0 / elapsed, report.bytesRead / 1048.576 / elapsed));
+    }
+
+    /**
+     * The stored progress of the source, or null when it was never imported
+     */
+    private static Progress readProgress(Connection conn, String source) throws SQLException {
+        String query = "SELECT fingerprint, records, inserted, finished FROM import_progress WHERE source = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, source);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return new Progress(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getBoolean(4));
+            }
+        } catch (SQLException e) {
+            if (e.getErrorCode() == 1146) { // Table doesn't exist
+                throw new SQLException("import_progress table not found. Please create it (see readme).", e);
+            }
+            throw e;
+        }
+    }
+
+    private static void writeProgress(Connection conn, String source, String fingerprint, long records,
+                                      long inserted, boolean finished) throws SQLException {
+        String upsert = "INSERT INTO import_progress (source, fingerprint, records, inserted, finished) " +
+            "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE fingerprint = VALUES(fingerprint), " +
+            "records = VALUES(records), inserted = VALUES(inserted), finished = VALUES(finished)";
+        try (PreparedStatement stmt = conn.prepareStatement(upsert)) {
+            stmt.setString(1, source);
+            stmt.setString(2, fingerprint);
+            stmt.setLong(3, records);
+            stmt.setLong(4, inserted);
+            stmt.setBoolean(5, finished);
+            stmt.executeUpdate();
+        }
+    }
+
+    private RecordReader open(CountingInputStream in) throws IOException {
+        if (format == Format.SNAPSHOT) {
+            in.close();
+            in.count = Files.size(file); // Mapped rather than streamed
+            return new SnapshotRecordReader(QuestionSnapshot.open(file));
+        }
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), READ_BUFFER_CHARS);
+        return format == Format.JSON ? new JsonRecordReader(reader) : new CsvRecordReader(reader);
+    }
+
+    /**
+     * RFC 4180 CSV: quoted fields may hold commas, doubled quotes and line breaks
+     */
+    static final class CsvRecordReader implements RecordReader {
+        private final Reader in;
+        private String[] header;
+        private final StringBuilder field = new StringBuilder();
+        private boolean eof = false;
+
+        CsvRecordReader(Reader in) {
+            this.in = in;
+        }
+
+        @Override
+        public Map<String, Object> next() throws IOException {
+            if (header == null) {
+                List<String> names = readLine();
+                if (names == null) {
+                    return null;
+                }
+                header = new String[names.size()];
+                for (int i = 0; i < header.length; i++) {
+                    String name = names.get(i).trim().toLowerCase(Locale.ROOT);
+                    header[i] = i == 0 && name.startsWith("\uFEFF") ? name.substring(1) : name;
+                }
+            }
+
+            List<String> values;
+            do {
+                values = readLine();
+                if (values == null) {
+                    return null;
+                }
+            } while (values.size() == 1 && values.get(0).isEmpty()); // Blank line
+
+            Map<String, Object> record = new HashMap<>(header.length * 2);
+            for (int i = 0; i < header.length && i < values.size(); i++) {
+                record.put(header[i], values.get(i));
+            }
+            return record;
+        }
+
+        private List<String> readLine() throws IOException {
+            if (eof) {
+                return null;
+            }
+            List<String> values = new ArrayList<>(COLUMNS_PER_ROW + 1);
+            field.setLength(0);
+            boolean quoted = false;
+            boolean any = false;
+            while (true) {
+                int c = in.read();
+                if (c == -1) {
+                    eof = true;
+                    if (!any) {
+                        return null;
+                    }
+                    if (quoted) {
+                        throw new IOException("Unterminated quoted field at end of file");
+                    }
+                    values.add(field.toString());
+                    return values;
+                }
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        in.mark(1);
+                        if (in.read() == '"') {
+                            field.append('"');
+                        } else {
+                            in.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    values.add(field.toString());
+                    return values;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Objects from a top-level JSON array or from newline-delimited JSON, one at a time
+     */
+    static final class JsonRecordReader implements RecordReader {
+        private final Reader in;
+        private int peeked = -2;
+        private final StringBuilder text = new StringBuilder();
+
+        JsonRecordReader(Reader in) {
+            this.in = in;
+        }
+
+        @Override
+        public Map<String, Object> next() throws IOException {
+            int c = skipWhitespace();
+            while (c == '[' || c == ',' || c == ']') {
+                read();
+                c = skipWhitespace();
+            }
+            if (c == -1) {
+                return null;
+            }
+            if (c != '{') {
+                throw new IOException("Expected a JSON object but found '" + (char) c + "'");
+            }
+            Map<String, Object> record = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> member : readObject().entrySet()) {
+                record.put(member.getKey().toLowerCase(Locale.ROOT), member.getValue());
+            }
+            return record;
+        }
+
+        private Object readValue() throws IOException {
+            int c = skipWhitespace();
+            switch (c) {
+                case '{':
+                    return readObject();
+                case '[':
+                    return readArray();
+                case '"':
+                    return readString();
+                case -1:
+                    throw new IOException("Unexpected end of JSON input");
+                default:
+                    return readLiteral();
+            }
+        }
+
+        private Map<String, Object> readObject() throws IOException {
+            expect('{');
+            Map<String, Object> object = new LinkedHashMap<>();
+            if (skipWhitespace() == '}') {
+                read();
+                return object;
+            }
+            while (true) {
+                if (skipWhitespace() != '"') {
+                    throw new IOException("Expected a member name in JSON object");
+                }
+                String name = readString();
+                skipWhitespace();
+                expect(':');
+                object.put(name, readValue());
+                int c = skipWhitespace();
+                read();
+                if (c == '}') {
+                    return object;
+                }
+                if (c != ',') {
+                    throw new IOException("Expected ',' or '}' in JSON object");
+                }
+            }
+        }
+
+        private List<Object> readArray() throws IOException {
+            expect('[');
+            List<Object> array = new ArrayList<>();
+            if (skipWhitespace() == ']') {
+                read();
+                return array;
+            }
+            while (true) {
+                array.add(readValue());
+                int c = skipWhitespace();
+                read();
+                if (c == ']') {
+                    return array;
+                }
+                if (c != ',') {
+                    throw new IOException("Expected ',' or ']' in JSON array");
+                }
+            }
+        }
+
+        private String readString() throws IOException {
+            expect('"');
+            text.setLength(0);
+            while (true) {
+                int c = read();
+                if (c == -1) {
+                    throw new IOException("Unterminated JSON string");
+                }
+                if (c == '"') {
+                    return text.toString();
+                }
+                if (c != '\\') {
+                    text.append((char) c);
+                    continue;
+                }
+                int escaped = read();
+                switch (escaped) {
+                    case 'n': text.append('\n'); break;
+                    case 't': text.append('\t'); break;
+                    case 'r': text.append('\r'); break;
+                    case 'b': text.append('\b'); break;
+                    case 'f': text.append('\f'); break;
+                    case 'u':
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(read(), 16);
+                            if (digit < 0) {
+                                throw new IOException("Invalid \\u escape in JSON string");
+                            }
+                            code = code * 16 + digit;
+                        }
+                        text.append((char) code);
+                        break;
+                    case -1:
+                        throw new IOException("Unterminated JSON string");
+                    default:
+                        text.append((char) escaped); // \" \\ \/
+                }
+            }
+        }
+
+        /**
+         * Numbers, true and false as their text; null as null
+         */
+        private String readLiteral() throws IOException {
+            StringBuilder literal = new StringBuilder();
+            int c = peek();
+            while (c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                literal.append((char) read());
+                c = peek();
+            }
+            String value = literal.toString();
+            if (value.isEmpty()) {
+                throw new IOException("Unexpected character in JSON input: '" + (char) c + "'");
+            }
+            return "null".equals(value) ? null : value;
+        }
+
+        private void expect(char expected) throws IOException {
+            int c = read();
+            if (c != expected) {
+                throw new IOException("Expected '" + expected + "' in JSON input but found " +
+                    (c == -1 ? "end of input" : "'" + (char) c + "'"));
+            }
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c = peek();
+            while (c != -1 && Character.isWhitespace(c)) {
+                read();
+                c = peek();
+            }
+            return c;
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = in.read();
+            }
+            return peeked;
+        }
+
+        private int read() throws IOException {
+            int c = peek();
+            peeked = -2;
+            return c;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * The questions of a snapshot, with the keys of the other formats
+     */
+    private static final class SnapshotRecordReader implements RecordReader {
+        private final QuestionSnapshot.Reader snapshot;
+        private int next = 0;
+
+        SnapshotRecordReader(QuestionSnapshot.Reader snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            if (next == snapshot.getQuestionCount()) {
+                return null;
+            }
+            Question question = snapshot.question(next);
+            Map<String, Object> record = new HashMap<>();
+            record.put("question", question.getQuestionText());
+            record.put("options", Arrays.asList(question.getOptions()));
+            record.put("correct_answer", question.getCorrectAnswer());
+            record.put("category", snapshot.category(next));
+            record.put("difficulty", String.valueOf(snapshot.difficulty(next)));
+            next++;
+            return record;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Counts the bytes read from the file, for throughput reporting
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Runs an import: QuestionImporter file [--format csv|json|snapshot] [--chunk records] [--restart]
+     */
+    public static void main(String[] args) throws Exception {
+        Path file = null;
+        Format format = null;
+        int chunk = DEFAULT_CHUNK_RECORDS;
+        boolean restart = false;
+        for (int i = 0; i < args.length; i++) {
+            if ("--format".equals(args[i]) && i + 1 < args.length) {
+                format = Format.valueOf(args[++i].toUpperCase(Locale.ROOT));
+            } else if ("--chunk".equals(args[i]) && i + 1 < args.length) {
+                chunk = Integer.parseInt(args[++i]);
+            } else if ("--restart".equals(args[i])) {
+                restart = true;
+            } else {
+                file = Paths.get(args[i]);
+            }
+        }
+        if (file == null) {
+            System.err.println("Usage: QuizApp --import file [--format csv|json|snapshot] [--chunk records] [--restart]");
+            System.exit(2);
+        }
+
+        try {
+            Report report = new QuestionImporter(file, format == null ? Format.of(file) : format, chunk, restart).run();
+            System.out.println(report);
+        } finally {
+            DatabaseConnector.closeConnection();
+        }
+    }
+}
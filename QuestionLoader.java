@@ -0,0 +1,92 @@
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Loads questions from DatabaseConnector on a dedicated executor so that
+ * callers on the Event Dispatch Thread never block on JDBC.
+ */
+public class QuestionLoader {
+    private static final Logger LOGGER = Logger.getLogger(QuestionLoader.class.getName());
+    private static final int LOADER_THREADS = 2;
+
+    private final ExecutorService executor;
+
+    public QuestionLoader() {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(LOADER_THREADS, r -> {
+            Thread thread = new Thread(r, "question-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Fetches the candidate pool of an adaptive quiz and loads the candidates' statistics, asynchronously
+     */
+    public CompletableFuture<List<Question>> loadPool(QuizSpec spec, DifficultyModel model) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                List<Question> pool = DatabaseConnector.assembleQuiz(spec);
+                model.preload(pool);
+                return pool;
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Builds a user's spaced-repetition quiz asynchronously
+     */
+    public CompletableFuture<List<Question>> loadReview(String user, QuizSpec spec, ReviewScheduler scheduler) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return scheduler.buildQuiz(user, spec);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Lists the question categories asynchronously
+     */
+    public CompletableFuture<Map<String, Integer>> loadCategories() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return DatabaseConnector.getCategoryCounts();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Reads a player's best score asynchronously; 0 when there is none or it cannot be read
+     */
+    public CompletableFuture<Integer> loadHighScore(String user, String category) {
+        return CompletableFuture.supplyAsync(() -> DatabaseConnector.getHighScore(user, category), executor);
+    }
+
+    /**
+     * Unwraps the CompletionException layer added by the future
+     */
+    public static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        LOGGER.info("Question loader shut down");
+    }
+}
@@ -0,0 +1,124 @@
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Prepares the next quiz's question set in the background while the
+ * current quiz is being played.
+ *
+ * A prefetch starts once the player reaches a configurable question. A
+ * prefetch still running when the next quiz starts is waited for rather
+ * than repeated. The prepared set is discarded when it has outlived its
+ * maximum age or when DatabaseConnector has observed a change to the
+ * question bank since the fetch started.
+ */
+public class QuestionPrefetcher {
+    private static final Logger LOGGER = Logger.getLogger(QuestionPrefetcher.class.getName());
+    private static final long MAX_AGE_MS = 5 * 60_000;
+
+    private final Supplier<CompletableFuture<List<Question>>> source;
+    private final int prefetchAtQuestion;
+
+    private CompletableFuture<List<Question>> pending;
+    private long pendingBankVersion;
+    private long pendingStartedAt;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleDiscards = new AtomicLong();
+
+    /**
+     * @param source             produces a ready-to-play question set
+     * @param prefetchAtQuestion 1-based question number that triggers the prefetch
+     */
+    public QuestionPrefetcher(Supplier<CompletableFuture<List<Question>>> source, int prefetchAtQuestion) {
+        this.source = source;
+        this.prefetchAtQuestion = prefetchAtQuestion;
+    }
+
+    /**
+     * Reports quiz progress; starts a prefetch once the trigger point is reached
+     */
+    public synchronized void onProgress(int questionNumber) {
+        if (questionNumber < prefetchAtQuestion || pending != null) {
+            return;
+        }
+
+        pendingBankVersion = DatabaseConnector.getQuestionBankVersion();
+        pendingStartedAt = System.currentTimeMillis();
+        pending = source.get();
+        LOGGER.fine("Prefetching next question set at question " + questionNumber);
+    }
+
+    /**
+     * Hands over the prefetch, which may still be running, or returns null when none was started.
+     * The future completes with null when the prefetch failed or its set is stale; fetch normally then.
+     */
+    public synchronized CompletableFuture<List<Question>> take() {
+        CompletableFuture<List<Question>> future = pending;
+        pending = null;
+        if (future == null) {
+            misses.incrementAndGet();
+            logRates();
+            return null;
+        }
+
+        long bankVersion = pendingBankVersion;
+        long startedAt = pendingStartedAt;
+        return future.handle((prepared, error) -> {
+            if (error != null) {
+                LOGGER.fine("Prefetch failed: " + error.getMessage());
+                misses.incrementAndGet();
+                logRates();
+                return null;
+            }
+            boolean bankChanged = bankVersion != DatabaseConnector.getQuestionBankVersion();
+            boolean expired = System.currentTimeMillis() - startedAt > MAX_AGE_MS;
+            if (bankChanged || expired || prepared.isEmpty()) {
+                LOGGER.info("Discarding stale prefetched questions (bankChanged=" + bankChanged +
+                    ", expired=" + expired + ")");
+                staleDiscards.incrementAndGet();
+                misses.incrementAndGet();
+                logRates();
+                return null;
+            }
+            hits.incrementAndGet();
+            logRates();
+            return prepared;
+        });
+    }
+
+    /**
+     * Drops any in-flight or prepared set
+     */
+    public synchronized void discard() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getStaleDiscards() {
+        return staleDiscards.get();
+    }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    private void logRates() {
+        LOGGER.info(String.format("Prefetch hits=%d, misses=%d, stale=%d, hitRate=%.1f%%",
+            hits.get(), misses.get(), staleDiscards.get(), getHitRate() * 100));
+    }
+}
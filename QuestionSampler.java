@@ -0,0 +1,483 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * Draws random question rows without sorting the whole table.
+ *
+ * The indexed strategy keeps a cached snapshot of the primary key range
+ * (min id, max id, row count) and probes random ids against it with
+ * {@code WHERE id IN (...)}, so the cost depends on the number of rows
+ * requested rather than on the size of the table. Tables whose ids are too
+ * sparse for probing fall back to reservoir sampling over the id index.
+ * Quizzes restricted to categories or a difficulty range draw their ids
+ * from a CategoryIndex instead.
+ */
+public class QuestionSampler {
+    private static final Logger LOGGER = Logger.getLogger(QuestionSampler.class.getName());
+
+    // Sampling settings
+    private static final long ID_RANGE_TTL_MS = 60_000;
+    private static final double MIN_PROBE_DENSITY = 0.05;
+    private static final int MAX_PROBE_ROUNDS = 4;
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE; // MySQL row-by-row streaming
+
+    private static final String COLUMNS =
+        "id, question, option1, option2, option3, option4, correct_answer";
+
+    /**
+     * Available sampling strategies
+     */
+    public enum Mode {
+        ORDER_BY_RAND,
+        INDEXED
+    }
+
+    private final String table;
+    private final Runnable listener;
+    private final CategoryIndex categoryIndex;
+    private volatile IdRange idRange = null;
+    private volatile IdRange lastLoadedRange = null;
+
+    public QuestionSampler(String table) {
+        this(table, null);
+    }
+
+    /**
+     * @param listener called when a refreshed id range differs from the previous one
+     */
+    public QuestionSampler(String table, Runnable listener) {
+        this.table = table;
+        this.listener = listener;
+        this.categoryIndex = new CategoryIndex(table);
+    }
+
+    /**
+     * Samples rows with the requested strategy
+     */
+    public List<Question> sample(Connection conn, int limit, Mode mode) throws SQLException {
+        return sample(conn, new QuizSpec(limit), mode, new TransferStats());
+    }
+
+    /**
+     * Samples exactly the rows a quiz spec needs, recording transferred data in stats
+     */
+    public List<Question> sample(Connection conn, QuizSpec spec, Mode mode, TransferStats stats)
+            throws SQLException {
+        if (mode == Mode.ORDER_BY_RAND) {
+            return sampleOrderByRand(conn, spec, stats);
+        }
+        return sampleIndexed(conn, spec, stats);
+    }
+
+    /**
+     * Original strategy: lets MySQL sort the whole table by RAND()
+     */
+    private List<Question> sampleOrderByRand(Connection conn, QuizSpec spec, TransferStats stats)
+            throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String query = "SELECT " + COLUMNS + " FROM " + table +
+            " WHERE 1=1" + buildFilter(spec, params, true) + " ORDER BY RAND() LIMIT ?";
+        params.add(spec.getCount());
+
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            bind(stmt, params, 1);
+            stmt.setFetchSize(spec.getCount());
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Question> questions = new ArrayList<>(spec.getCount());
+                readQuestions(rs, questions, spec.getCount(), stats);
+                return questions;
+            }
+        }
+    }
+
+    /**
+     * Indexed strategy: probes random ids inside the cached id range
+     */
+    private List<Question> sampleIndexed(Connection conn, QuizSpec spec, TransferStats stats)
+            throws SQLException {
+        if (!spec.getCategories().isEmpty() || spec.hasDifficultyFilter()) {
+            return sampleCategories(conn, spec, stats);
+        }
+
+        int limit = spec.getCount();
+        IdRange range = getIdRange(conn, stats);
+        List<Question> questions = new ArrayList<>(limit);
+
+        if (range.count == 0) {
+            return questions;
+        }
+
+        // Small tables are cheaper to read whole
+        if (range.count - spec.getExcludedIds().size() <= limit) {
+            questions = sampleReservoir(conn, spec, stats);
+            Collections.shuffle(questions);
+            return questions;
+        }
+
+        if (range.density() < MIN_PROBE_DENSITY) {
+            LOGGER.fine("Id density " + range.density() + " too low for probing, using reservoir sampling");
+            questions = sampleReservoir(conn, spec, stats);
+            Collections.shuffle(questions);
+            return questions;
+        }
+
+        Set<Integer> seen = new HashSet<>(spec.getExcludedIds());
+        Random random = ThreadLocalRandom.current();
+
+        for (int round = 0; round < MAX_PROBE_ROUNDS && questions.size() < limit; round++) {
+            int missing = limit - questions.size();
+
+            // Oversample by the expected gap ratio so most rounds finish in one query
+            int probes = (int) Math.ceil(missing / range.density() * 1.2) + 1;
+            Set<Integer> ids = new LinkedHashSet<>();
+            while (ids.size() < probes && seen.size() + ids.size() < range.span()) {
+                int id = range.minId + random.nextInt(range.span());
+                if (!seen.contains(id)) {
+                    ids.add(id);
+                }
+            }
+            seen.addAll(ids);
+
+            if (ids.isEmpty()) {
+                break;
+            }
+            fetchByIds(conn, ids, spec, questions, limit, stats);
+        }
+
+        // Gaps or category filters were denser than the cached snapshot suggested
+        if (questions.size() < limit) {
+            LOGGER.fine("Probing returned " + questions.size() + " of " + limit + " rows, filling from reservoir");
+            if (!spec.hasFilters()) {
+                idRange = null;
+            }
+            fillFromReservoir(conn, spec, questions, stats);
+        }
+
+        Collections.shuffle(questions);
+        return questions;
+    }
+
+    /**
+     * Category or difficulty filtered strategy: draws ids from the in-memory category index
+     */
+    private List<Question> sampleCategories(Connection conn, QuizSpec spec, TransferStats stats)
+            throws SQLException {
+        int limit = spec.getCount();
+        int[] drawn = categoryIndex.sample(conn, spec, stats);
+        List<Question> questions = new ArrayList<>(limit);
+        if (drawn.length == 0) {
+            return questions;
+        }
+
+        Set<Integer> ids = new LinkedHashSet<>(drawn.length * 2);
+        for (int id : drawn) {
+            ids.add(id);
+        }
+        // The filter is repeated in SQL so a stale index cannot leak other categories
+        fetchByIds(conn, ids, spec, questions, limit, stats);
+
+        if (questions.size() < drawn.length) {
+            LOGGER.fine("Category index returned " + drawn.length + " ids but only " + questions.size()
+                + " matched, reloading it");
+            categoryIndex.invalidate();
+            fillFromReservoir(conn, spec, questions, stats);
+        }
+
+        Collections.shuffle(questions);
+        return questions;
+    }
+
+    /**
+     * Number of questions per category
+     */
+    public Map<String, Integer> getCategoryCounts(Connection conn) throws SQLException {
+        return categoryIndex.getCategoryCounts(conn);
+    }
+
+    /**
+     * Tops questions up to spec.getCount() from a reservoir sample that also excludes the ids already drawn
+     */
+    private void fillFromReservoir(Connection conn, QuizSpec spec, List<Question> questions, TransferStats stats)
+            throws SQLException {
+        int missing = spec.getCount() - questions.size();
+        if (missing <= 0) {
+            return;
+        }
+        Set<Integer> taken = new HashSet<>(spec.getExcludedIds());
+        for (Question question : questions) {
+            taken.add(question.getId());
+        }
+        QuizSpec fill = new QuizSpec(missing, spec.getCategories(), taken,
+            spec.getMinDifficulty(), spec.getMaxDifficulty());
+        questions.addAll(sampleReservoir(conn, fill, stats));
+    }
+
+    /**
+     * Reservoir-samples ids from the primary key index, then loads those rows
+     */
+    private List<Question> sampleReservoir(Connection conn, QuizSpec spec, TransferStats stats)
+            throws SQLException {
+        int limit = spec.getCount();
+        int[] reservoir = new int[limit];
+        int seen = 0;
+        Random random = ThreadLocalRandom.current();
+
+        List<Object> params = new ArrayList<>();
+        String query = "SELECT id FROM " + table + " WHERE 1=1" + buildFilter(spec, params, true);
+
+        // Stream the id column instead of buffering it client-side
+        try (PreparedStatement stmt = conn.prepareStatement(query,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            bind(stmt, params, 1);
+            stmt.setFetchSize(STREAMING_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    stats.idRows++;
+                    stats.bytes += Integer.BYTES;
+                    if (seen < limit) {
+                        reservoir[seen] = id;
+                    } else {
+                        int slot = random.nextInt(seen + 1);
+                        if (slot < limit) {
+                            reservoir[slot] = id;
+                        }
+                    }
+                    seen++;
+                }
+            }
+        }
+
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (int i = 0; i < Math.min(seen, limit); i++) {
+            ids.add(reservoir[i]);
+        }
+
+        List<Question> questions = new ArrayList<>(ids.size());
+        if (!ids.isEmpty()) {
+            fetchByIds(conn, ids, null, questions, limit, stats);
+        }
+        return questions;
+    }
+
+    /**
+     * Loads the questions with the given ids, in no particular order; missing ids are skipped
+     */
+    public List<Question> fetch(Connection conn, Collection<Integer> ids, TransferStats stats) throws SQLException {
+        List<Question> questions = new ArrayList<>(ids.size());
+        if (!ids.isEmpty()) {
+            fetchByIds(conn, new LinkedHashSet<>(ids), null, questions, ids.size(), stats);
+        }
+        return questions;
+    }
+
+    /**
+     * Loads rows for the given ids, appending at most {@code limit} questions
+     */
+    private void fetchByIds(Connection conn, Set<Integer> ids, QuizSpec spec, List<Question> questions,
+                            int limit, TransferStats stats) throws SQLException {
+        StringBuilder query = new StringBuilder("SELECT ").append(COLUMNS)
+            .append(" FROM ").append(table).append(" WHERE id IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            query.append(i == 0 ? "?" : ",?");
+        }
+        query.append(')');
+
+        // Exclusions were already applied when the ids were drawn
+        List<Object> params = new ArrayList<Object>(ids);
+        if (spec != null) {
+            query.append(buildFilter(spec, params, false));
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            bind(stmt, params, 1);
+            stmt.setFetchSize(limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                readQuestions(rs, questions, limit, stats);
+            }
+        }
+    }
+
+    /**
+     * Appends the spec's WHERE conditions and collects their parameters
+     */
+    private static String buildFilter(QuizSpec spec, List<Object> params, boolean includeExclusions) {
+        StringBuilder filter = new StringBuilder();
+        if (!spec.getCategories().isEmpty()) {
+            filter.append(" AND category IN (");
+            appendPlaceholders(filter, spec.getCategories().size());
+            filter.append(')');
+            params.addAll(spec.getCategories());
+        }
+        if (spec.hasDifficultyFilter()) {
+            filter.append(" AND difficulty BETWEEN ? AND ?");
+            params.add(spec.getMinDifficulty());
+            params.add(spec.getMaxDifficulty());
+        }
+        if (includeExclusions && !spec.getExcludedIds().isEmpty()) {
+            filter.append(" AND id NOT IN (");
+            appendPlaceholders(filter, spec.getExcludedIds().size());
+            filter.append(')');
+            params.addAll(spec.getExcludedIds());
+        }
+        return filter.toString();
+    }
+
+    private static void appendPlaceholders(StringBuilder sql, int count) {
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+    }
+
+    private static void bind(PreparedStatement stmt, List<Object> params, int firstIndex) throws SQLException {
+        int index = firstIndex;
+        for (Object param : params) {
+            stmt.setObject(index++, param);
+        }
+    }
+
+    private void readQuestions(ResultSet rs, List<Question> questions, int limit, TransferStats stats)
+            throws SQLException {
+        while (questions.size() < limit && rs.next()) {
+            try {
+                Question question = DatabaseConnector.createQuestionFromResultSet(rs);
+                questions.add(question);
+                stats.rows++;
+                stats.bytes += estimateBytes(question);
+            } catch (Exception e) {
+                // Log individual question parsing errors but continue
+                stats.rows++;
+                LOGGER.warning("Failed to parse question with ID " +
+                    rs.getInt("id") + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Approximate wire size of a question row: id plus UTF-8 text columns
+     */
+    private static long estimateBytes(Question question) {
+        long bytes = Integer.BYTES + utf8Length(question.getQuestionText()) + utf8Length(question.getCorrectAnswer());
+        for (int i = 0; i < question.getOptionCount(); i++) {
+            bytes += utf8Length(question.getOption(i));
+        }
+        return bytes;
+    }
+
+    static int utf8Length(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns the cached id range, refreshing it once it has expired
+     */
+    private IdRange getIdRange(Connection conn, TransferStats stats) throws SQLException {
+        IdRange range = idRange;
+        if (range != null && System.currentTimeMillis() - range.loadedAt < ID_RANGE_TTL_MS) {
+            return range;
+        }
+
+        IdRange previous = lastLoadedRange;
+        String query = "SELECT MIN(id), MAX(id), COUNT(*) FROM " + table;
+        try (PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            range = rs.next()
+                ? new IdRange(rs.getInt(1), rs.getInt(2), rs.getInt(3))
+                : new IdRange(0, 0, 0);
+            stats.bytes += 3 * Integer.BYTES;
+        }
+
+        idRange = range;
+        lastLoadedRange = range;
+        if (previous != null && !previous.sameShape(range)) {
+            categoryIndex.invalidate();
+            if (listener != null) {
+                listener.run();
+            }
+        }
+        LOGGER.fine("Loaded id range for " + table + ": " + range);
+        return range;
+    }
+
+    /**
+     * Drops the cached id range and category index so the next sample reloads them
+     */
+    public void invalidate() {
+        idRange = null;
+        categoryIndex.invalidate();
+    }
+
+    /**
+     * Snapshot of the primary key range of a table
+     */
+    private static class IdRange {
+        final int minId;
+        final int maxId;
+        final int count;
+        final long loadedAt = System.currentTimeMillis();
+
+        IdRange(int minId, int maxId, int count) {
+            this.minId = minId;
+            this.maxId = maxId;
+            this.count = count;
+        }
+
+        int span() {
+            return count == 0 ? 0 : maxId - minId + 1;
+        }
+
+        boolean sameShape(IdRange other) {
+            return minId == other.minId && maxId == other.maxId && count == other.count;
+        }
+
+        double density() {
+            return span() == 0 ? 0 : (double) count / span();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("IdRange{min=%d, max=%d, count=%d}", minId, maxId, count);
+        }
+    }
+
+    /**
+     * Rows and approximate bytes read from the database for one sample
+     */
+    public static class TransferStats {
+        public long rows = 0;
+        public long idRows = 0;
+        public long bytes = 0;
+
+        @Override
+        public String toString() {
+            return String.format("TransferStats{rows=%d, idRows=%d, bytes=%d}", rows, idRows, bytes);
+        }
+    }
+}
@@ -0,0 +1,522 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Compact binary snapshot of the question bank and the attempts history.
+ *
+ * Layout, big-endian, sections addressed from a fixed header:
+ * <pre>
+ *   header     magic, version, counts, id watermark, section offsets (HEADER_BYTES)
+ *   questions  id[n] text[n] category[n] difficulty[n] optionCount[n] multi[n] correctMask[n] options[...]
+ *   attempts   user[m] category[m] score[m] total[m] durationMs[m] finishedAt[m]
+ *   strings    (length, UTF-8 bytes) per string
+ * </pre>
+ * Every text is an index into the string table, which holds each distinct
+ * string once, so options shared by many questions ("True", "False", years)
+ * are stored once. Sections are columnar: all ids, then all text indexes,
+ * and so on.
+ *
+ * Snapshots are written through a FileChannel from a large direct buffer
+ * and read back through a memory mapping, so loading one costs little more
+ * than decoding its strings. Files are limited to 2 GB.
+ */
+public class QuestionSnapshot {
+    private static final long MAGIC = 0x515A534E41503031L; // "QZSNAP01"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int WRITE_BUFFER_BYTES = 4 << 20;
+
+    /**
+     * Collects a bank and its attempts in columnar form, then writes them out
+     */
+    public static class Writer {
+        private final Map<String, Integer> stringIndex = new HashMap<>();
+        private String[] strings = new String[1024];
+        private int stringCount = 0;
+
+        private final IntColumn ids = new IntColumn();
+        private final IntColumn texts = new IntColumn();
+        private final IntColumn categories = new IntColumn();
+        private final IntColumn difficulties = new IntColumn();
+        private final IntColumn optionCounts = new IntColumn();
+        private final IntColumn multiAnswers = new IntColumn();
+        private final IntColumn correctMasks = new IntColumn();
+        private final IntColumn options = new IntColumn();
+
+        private final IntColumn attemptUsers = new IntColumn();
+        private final IntColumn attemptCategories = new IntColumn();
+        private final IntColumn attemptScores = new IntColumn();
+        private final IntColumn attemptTotals = new IntColumn();
+        private final LongColumn attemptDurations = new LongColumn();
+        private final LongColumn attemptFinished = new LongColumn();
+
+        private int maxId = 0;
+        private int rowCount = 0;
+
+        public void addQuestion(Question question, String category, int difficulty) {
+            if (question.getOptionCount() > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many options: " + question.getOptionCount());
+            }
+            ids.add(question.getId());
+            texts.add(intern(question.getQuestionText()));
+            categories.add(intern(category));
+            difficulties.add(difficulty);
+            optionCounts.add(question.getOptionCount());
+            multiAnswers.add(question.isMultiAnswer() ? 1 : 0);
+            correctMasks.add(question.getCorrectMask());
+            for (int i = 0; i < question.getOptionCount(); i++) {
+                options.add(intern(question.getOption(i)));
+            }
+        }
+
+        public void addAttempt(AttemptStore.Attempt attempt) {
+            attemptUsers.add(intern(attempt.getUser()));
+            attemptCategories.add(intern(attempt.getCategory()));
+            attemptScores.add(attempt.getScore());
+            attemptTotals.add(attempt.getTotal());
+            attemptDurations.add(attempt.getDurationMs());
+            attemptFinished.add(attempt.getFinishedAt());
+        }
+
+        /**
+         * Highest id and number of rows scanned in the source table, for cache revalidation
+         */
+        public void setWatermark(int maxId, int rowCount) {
+            this.maxId = maxId;
+            this.rowCount = rowCount;
+        }
+
+        public int getQuestionCount() {
+            return ids.size;
+        }
+
+        public int getAttemptCount() {
+            return attemptUsers.size;
+        }
+
+        public int getStringCount() {
+            return stringCount;
+        }
+
+        /**
+         * Writes the snapshot to a temporary file next to target and moves it into place
+         */
+        public long writeTo(Path target) throws IOException {
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            long size;
+            boolean written = false;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                Output out = new Output(channel);
+                out.position = HEADER_BYTES;
+                channel.position(HEADER_BYTES);
+
+                int n = ids.size;
+                ids.writeTo(out);
+                texts.writeTo(out);
+                categories.writeTo(out);
+                difficulties.writeBytesTo(out);
+                optionCounts.writeBytesTo(out);
+                multiAnswers.writeBytesTo(out);
+                correctMasks.writeTo(out);
+                options.writeTo(out);
+
+                long attemptsOffset = out.position;
+                attemptUsers.writeTo(out);
+                attemptCategories.writeTo(out);
+                attemptScores.writeTo(out);
+                attemptTotals.writeTo(out);
+                attemptDurations.writeTo(out);
+                attemptFinished.writeTo(out);
+
+                long stringsOffset = out.position;
+                for (int i = 0; i < stringCount; i++) {
+                    out.putString(strings[i]);
+                }
+                out.flush();
+                size = out.position;
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot would be " + size + " bytes; at most 2 GB is supported");
+                }
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putLong(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(n)
+                    .putLong(System.currentTimeMillis())
+                    .putInt(maxId)
+                    .putInt(rowCount)
+                    .putInt(attemptUsers.size)
+                    .putInt(stringCount)
+                    .putInt(options.size)
+                    .putInt(0)
+                    .putLong(attemptsOffset)
+                    .putLong(stringsOffset);
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(true);
+                written = true;
+            } finally {
+                if (!written) {
+                    Files.deleteIfExists(temp);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return size;
+        }
+
+        private int intern(String value) {
+            Integer index = stringIndex.get(value);
+            if (index == null) {
+                if (stringCount == strings.length) {
+                    strings = Arrays.copyOf(strings, stringCount * 2);
+                }
+                index = stringCount;
+                strings[stringCount++] = value;
+                stringIndex.put(value, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * A snapshot file mapped into memory. Strings are decoded on first use, or
+     * all at once with decodeAll, and shared afterwards, so equal texts come
+     * back as the same String. Not thread-safe.
+     */
+    public static class Reader {
+        private final MappedByteBuffer buffer;
+        private final int questionCount;
+        private final long createdAt;
+        private final int maxId;
+        private final int rowCount;
+        private final int attemptCount;
+        private final int optionTotal;
+        private final String[] strings;
+        private final int[] stringOffsets;
+        private long decodedBytes = 0;
+
+        // Column offsets
+        private final int idsAt;
+        private final int textsAt;
+        private final int categoriesAt;
+        private final int difficultiesAt;
+        private final int optionCountsAt;
+        private final int multiAt;
+        private final int masksAt;
+        private final int optionsAt;
+        private final int[] optionStarts;
+        private final int attemptsAt;
+
+        private Reader(MappedByteBuffer buffer) throws IOException {
+            this.buffer = buffer;
+            if (buffer.capacity() < HEADER_BYTES || buffer.getLong(0) != MAGIC) {
+                throw new IOException("Not a question snapshot");
+            }
+            int version = buffer.getInt(8);
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            questionCount = buffer.getInt(12);
+            createdAt = buffer.getLong(16);
+            maxId = buffer.getInt(24);
+            rowCount = buffer.getInt(28);
+            attemptCount = buffer.getInt(32);
+            int stringCount = buffer.getInt(36);
+            optionTotal = buffer.getInt(40);
+            attemptsAt = (int) buffer.getLong(48);
+            int stringsAt = (int) buffer.getLong(56);
+
+            int n = questionCount;
+            idsAt = HEADER_BYTES;
+            textsAt = idsAt + 4 * n;
+            categoriesAt = textsAt + 4 * n;
+            difficultiesAt = categoriesAt + 4 * n;
+            optionCountsAt = difficultiesAt + n;
+            multiAt = optionCountsAt + n;
+            masksAt = multiAt + n;
+            optionsAt = masksAt + 4 * n;
+            if (optionsAt + 4 * optionTotal != attemptsAt) {
+                throw new IOException("Corrupt snapshot: question section size mismatch");
+            }
+
+            optionStarts = new int[n + 1];
+            for (int i = 0; i < n; i++) {
+                optionStarts[i + 1] = optionStarts[i] + buffer.get(optionCountsAt + i);
+            }
+
+            // One pass over the length prefixes; the strings themselves are decoded lazily
+            strings = new String[stringCount];
+            stringOffsets = new int[stringCount];
+            int position = stringsAt;
+            for (int i = 0; i < stringCount; i++) {
+                stringOffsets[i] = position;
+                position += 4 + buffer.getInt(position);
+            }
+            if (position != buffer.capacity()) {
+                throw new IOException("Corrupt snapshot: string table size mismatch");
+            }
+        }
+
+        public int getQuestionCount() {
+            return questionCount;
+        }
+
+        public int getAttemptCount() {
+            return attemptCount;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public int getMaxId() {
+            return maxId;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public int getStringCount() {
+            return strings.length;
+        }
+
+        /**
+         * Approximate heap size of the strings decoded so far
+         */
+        public long getDecodedStringBytes() {
+            return decodedBytes;
+        }
+
+        /**
+         * Decodes the whole string table up front, in parallel
+         */
+        public void decodeAll() {
+            IntStream.range(0, strings.length).parallel().forEach(i -> {
+                if (strings[i] == null) {
+                    strings[i] = decode(i);
+                }
+            });
+            long bytes = 0;
+            for (String value : strings) {
+                bytes += 40 + 2L * value.length();
+            }
+            decodedBytes = bytes;
+        }
+
+        public Question question(int index) {
+            int count = buffer.get(optionCountsAt + index);
+            String[] questionOptions = new String[count];
+            int first = optionStarts[index];
+            for (int i = 0; i < count; i++) {
+                questionOptions[i] = string(buffer.getInt(optionsAt + 4 * (first + i)));
+            }
+            return new Question(id(index), string(buffer.getInt(textsAt + 4 * index)),
+                questionOptions, buffer.getInt(masksAt + 4 * index), buffer.get(multiAt + index) != 0);
+        }
+
+        public int id(int index) {
+            return buffer.getInt(idsAt + 4 * index);
+        }
+
+        public String category(int index) {
+            return string(buffer.getInt(categoriesAt + 4 * index));
+        }
+
+        public int difficulty(int index) {
+            return buffer.get(difficultiesAt + index);
+        }
+
+        public AttemptStore.Attempt attempt(int index) {
+            int m = attemptCount;
+            int at = attemptsAt;
+            return new AttemptStore.Attempt(
+                string(buffer.getInt(at + 4 * index)),
+                string(buffer.getInt(at + 4 * (m + index))),
+                buffer.getInt(at + 4 * (2 * m + index)),
+                buffer.getInt(at + 4 * (3 * m + index)),
+                buffer.getLong(at + 16 * m + 8 * index),
+                buffer.getLong(at + 24 * m + 8 * index));
+        }
+
+        private String string(int index) {
+            String value = strings[index];
+            if (value == null) {
+                value = decode(index);
+                strings[index] = value;
+                // Rough String footprint: header plus character data
+                decodedBytes += 40 + 2L * value.length();
+            }
+            return value;
+        }
+
+        private String decode(int index) {
+            int offset = stringOffsets[index];
+            byte[] bytes = new byte[buffer.getInt(offset)];
+            ByteBuffer view = buffer.duplicate();
+            view.position(offset + 4);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Maps a snapshot file for reading; the mapping stays valid after the channel is closed
+     */
+    public static Reader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is larger than 2 GB: " + file);
+            }
+            return new Reader(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * Exports the database to a snapshot: QuestionSnapshot file
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: QuizApp --snapshot file");
+            System.exit(2);
+        }
+        try {
+            DatabaseConnector.exportSnapshot(Paths.get(args[0]));
+        } finally {
+            DatabaseConnector.closeConnection();
+        }
+    }
+
+    /**
+     * Sequential writer over a direct buffer, drained to the channel when full
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+        long position = 0;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        void put(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+            position++;
+        }
+
+        void putInts(int[] values, int count) throws IOException {
+            int i = 0;
+            while (i < count) {
+                ensure(4);
+                int n = Math.min(count - i, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values, i, n);
+                buffer.position(buffer.position() + 4 * n);
+                i += n;
+            }
+            position += 4L * count;
+        }
+
+        void putLongs(long[] values, int count) throws IOException {
+            int i = 0;
+            while (i < count) {
+                ensure(8);
+                int n = Math.min(count - i, buffer.remaining() / 8);
+                buffer.asLongBuffer().put(values, i, n);
+                buffer.position(buffer.position() + 8 * n);
+                i += n;
+            }
+            position += 8L * count;
+        }
+
+        void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            if (bytes.length > buffer.capacity()) {
+                flush();
+                ByteBuffer large = ByteBuffer.wrap(bytes);
+                while (large.hasRemaining()) {
+                    channel.write(large);
+                }
+            } else {
+                ensure(bytes.length);
+                buffer.put(bytes);
+            }
+            position += bytes.length;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    private static final class IntColumn {
+        int[] values = new int[1024];
+        int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void writeTo(Output out) throws IOException {
+            out.putInts(values, size);
+        }
+
+        void writeBytesTo(Output out) throws IOException {
+            for (int i = 0; i < size; i++) {
+                out.put((byte) values[i]);
+            }
+        }
+    }
+
+    private static final class LongColumn {
+        long[] values = new long[1024];
+        int size = 0;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void writeTo(Output out) throws IOException {
+            out.putLongs(values, size);
+        }
+    }
+}
@@ -19,7 +19,25 @@ public class QuizApp extends JFrame {
         DatabaseConnector.closeConnection();
     }
     
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // Headless multiplayer mode: QuizApp --server [port] [--demo]
+        if (args.length > 0 && "--server".equals(args[0])) {
+            QuizServer.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
+        // Bulk question import: QuizApp --import file [--format csv|json|snapshot] [--chunk records] [--restart]
+        if (args.length > 0 && "--import".equals(args[0])) {
+            QuestionImporter.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
+        // Binary snapshot of the bank and attempts: QuizApp --snapshot file
+        if (args.length > 0 && "--snapshot".equals(args[0])) {
+            QuestionSnapshot.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
         SwingUtilities.invokeLater(() -> {
             try {
                 UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -0,0 +1,277 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * UI-free quiz engine: selects questions, shuffles options and hosts any
+ * number of concurrent QuizSessions.
+ *
+ * Question timeouts for all sessions are driven by one shared scheduler, so
+ * an engine can host thousands of sessions without a thread per player.
+ * Every answer in every session feeds the engine's DifficultyModel, which
+ * adaptive sessions use to pick each next question. Review sessions are
+ * built per player by the engine's ReviewScheduler and reschedule each
+ * question the player answers.
+ */
+public class QuizEngine {
+    private static final Logger LOGGER = Logger.getLogger(QuizEngine.class.getName());
+    private static final int TIMER_THREADS = 2;
+
+    /**
+     * Supplies question templates for a quiz
+     */
+    public interface QuestionSource {
+        List<Question> fetch(QuizSpec spec) throws SQLException;
+    }
+
+    /**
+     * Engine-wide quiz settings
+     */
+    public static class Config {
+        public int questionsPerQuiz = 10;
+        public long timePerQuestionMs = 30_000;
+        public int hintsPerQuiz = 3;
+        // Candidates fetched per adaptive quiz question. Each quiz reads questionsPerQuiz * factor
+        // rows; 1 reads no more than a fixed quiz, but then the selector can only reorder them.
+        public int adaptivePoolFactor = Math.max(1, Integer.getInteger("quiz.adaptivePoolFactor", 5));
+        public boolean persistQuestionStats = true;  // Keep difficulty estimates in question_stats
+        public boolean persistReviewState = true;    // Keep spaced-repetition schedules in review_state
+    }
+
+    private final QuestionSource source;
+    private final Config config;
+    private final ScheduledThreadPoolExecutor timers;
+    private final ConcurrentMap<String, QuizSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong sessionIds = new AtomicLong();
+    private final AtomicLong sessionsStarted = new AtomicLong();
+    private final DifficultyModel difficultyModel;
+    private final ReviewScheduler reviewScheduler;
+
+    // Feeds every answer into the difficulty estimates
+    private final QuizListener statsRecorder = new QuizListener() {
+        @Override
+        public void onAnswered(QuizSession session, QuestionAttempt attempt, boolean correct) {
+            difficultyModel.record(attempt.getQuestion().getId(), correct, attempt.getTimeToAnswerMillis());
+        }
+
+        @Override
+        public void onTimeUp(QuizSession session, QuestionAttempt attempt) {
+            difficultyModel.record(attempt.getQuestion().getId(), false, attempt.getTimeToAnswerMillis());
+        }
+    };
+
+    public QuizEngine() {
+        this(DatabaseConnector::assembleQuiz, new Config());
+    }
+
+    public QuizEngine(QuestionSource source, Config config) {
+        this.source = source;
+        this.config = config;
+        this.difficultyModel = new DifficultyModel(config.timePerQuestionMs, config.persistQuestionStats);
+        this.reviewScheduler = new ReviewScheduler(source, config.timePerQuestionMs, config.persistReviewState);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.timers = new ScheduledThreadPoolExecutor(TIMER_THREADS, r -> {
+            Thread thread = new Thread(r, "quiz-engine-timer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Answered questions cancel their timeout; don't keep the dead tasks queued
+        timers.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Fetches a new question set and starts a session on it
+     */
+    public QuizSession startSession(boolean timed, QuizListener listener) throws SQLException {
+        return startSession(new QuizSpec(config.questionsPerQuiz), timed, listener);
+    }
+
+    /**
+     * Fetches a question set matching the spec and starts a session on it
+     */
+    public QuizSession startSession(QuizSpec spec, boolean timed, QuizListener listener) throws SQLException {
+        List<Question> questions = source.fetch(spec);
+        if (questions.isEmpty()) {
+            throw new SQLException("No questions available for " + spec);
+        }
+        return startSession(questions, timed, listener);
+    }
+
+    /**
+     * Starts a session on an already fetched question set
+     */
+    public QuizSession startSession(List<Question> questions, boolean timed, QuizListener listener) {
+        return register(newSession(questions, timed), listener);
+    }
+
+    /**
+     * Builds a spaced-repetition quiz for the user, due reviews first, and starts a session on it
+     */
+    public QuizSession startReviewSession(String user, QuizSpec spec, boolean timed, QuizListener listener)
+            throws SQLException {
+        List<Question> questions = reviewScheduler.buildQuiz(user, spec);
+        if (questions.isEmpty()) {
+            throw new SQLException("No questions available for " + spec);
+        }
+        return startReviewSession(user, questions, timed, listener);
+    }
+
+    /**
+     * Starts a session on questions from ReviewScheduler.buildQuiz; every answer reschedules its question for the user
+     */
+    public QuizSession startReviewSession(String user, List<Question> questions, boolean timed, QuizListener listener) {
+        QuizSession session = newSession(questions, timed);
+        session.addListener(reviewScheduler.recorderFor(user));
+        return register(session, listener);
+    }
+
+    /**
+     * Fetches a candidate pool for the spec and starts an adaptive session of spec.getCount() questions
+     */
+    public QuizSession startAdaptiveSession(QuizSpec spec, boolean timed, QuizListener listener) throws SQLException {
+        QuizSpec poolSpec = new QuizSpec(spec.getCount() * config.adaptivePoolFactor, spec.getCategories(),
+            spec.getExcludedIds(), spec.getMinDifficulty(), spec.getMaxDifficulty());
+        List<Question> pool = source.fetch(poolSpec);
+        if (pool.isEmpty()) {
+            throw new SQLException("No questions available for " + spec);
+        }
+        difficultyModel.preload(pool);
+        return startAdaptiveSession(pool, spec.getCount(), timed, listener);
+    }
+
+    /**
+     * Starts an adaptive session that picks questionCount questions from the pool as it goes.
+     * Preload the pool's statistics first (see DifficultyModel.preload) where blocking is fine.
+     */
+    public QuizSession startAdaptiveSession(List<Question> pool, int questionCount, boolean timed, QuizListener listener) {
+        if (pool.isEmpty() || questionCount <= 0) {
+            throw new IllegalArgumentException("A quiz needs at least one question");
+        }
+        AdaptiveSelector selector = new AdaptiveSelector(difficultyModel, pool, config.timePerQuestionMs);
+        QuizSession session = new QuizSession(newSessionId(), this, selector,
+            Math.min(questionCount, pool.size()), timed, config.hintsPerQuiz);
+        return register(session, listener);
+    }
+
+    private QuizSession newSession(List<Question> questions, boolean timed) {
+        if (questions.isEmpty()) {
+            throw new IllegalArgumentException("A quiz needs at least one question");
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<QuestionAttempt> attempts = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            attempts.add(QuestionAttempt.shuffled(question, random));
+        }
+        return new QuizSession(newSessionId(), this, attempts, timed, config.hintsPerQuiz);
+    }
+
+    private String newSessionId() {
+        return Long.toString(sessionIds.incrementAndGet(), 36)
+            + Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    }
+
+    private QuizSession register(QuizSession session, QuizListener listener) {
+        session.addListener(statsRecorder);
+        if (listener != null) {
+            session.addListener(listener);
+        }
+
+        sessions.put(session.getId(), session);
+        sessionsStarted.incrementAndGet();
+        session.beginQuestion();
+        return session;
+    }
+
+    public QuizSession getSession(String id) {
+        return sessions.get(id);
+    }
+
+    public Collection<QuizSession> getSessions() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+
+    /**
+     * Stops a session's timer and forgets it
+     */
+    public void endSession(String id) {
+        QuizSession session = sessions.remove(id);
+        if (session != null) {
+            session.cancelTimeout();
+        }
+    }
+
+    /**
+     * Forgets finished sessions older than maxAgeMs; returns how many were removed
+     */
+    public int evictFinished(long maxAgeMs) {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (QuizSession session : sessions.values()) {
+            if (session.isFinished() && now - session.getLastActivity() > maxAgeMs
+                    && sessions.remove(session.getId(), session)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Ends sessions, finished or not, with no activity for maxIdleMs; returns how many were removed
+     */
+    public int evictIdle(long maxIdleMs) {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (QuizSession session : sessions.values()) {
+            if (now - session.getLastActivity() > maxIdleMs && sessions.remove(session.getId(), session)) {
+                session.cancelTimeout();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    public long getSessionsStarted() {
+        return sessionsStarted.get();
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public DifficultyModel getDifficultyModel() {
+        return difficultyModel;
+    }
+
+    public ReviewScheduler getReviewScheduler() {
+        return reviewScheduler;
+    }
+
+    ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+        return timers.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        timers.shutdownNow();
+        sessions.clear();
+        difficultyModel.shutdown();
+        reviewScheduler.shutdown();
+        LOGGER.info("Quiz engine shut down");
+    }
+}
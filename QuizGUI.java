@@ -7,15 +7,15 @@ import javax.swing.Timer;
 import java.util.List;
 import java.awt.Toolkit;
 import java.util.stream.Collectors;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.awt.image.BufferedImage;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.GradientPaint;
 import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class QuizGUI extends JFrame {
     private JPanel mainPanel;
@@ -24,6 +24,9 @@ public class QuizGUI extends JFrame {
     private JPanel quizPanel;
     private JPanel resultPanel;
     private JPanel reviewPanel;
+    private JList<QuestionAttempt> reviewList;
+    private final ReviewListModel reviewModel = new ReviewListModel();
+    private JPanel loadingPanel;
     private JLabel questionLabel;
     private JRadioButton[] optionButtons;
     private JButton nextButton;
@@ -31,12 +34,10 @@ public class QuizGUI extends JFrame {
     private JProgressBar progressBar;
     private JLabel timerLabel;
     private JLabel scoreLabel;
-    private javax.swing.Timer timer;
-    private int timeLeft;
-    private int currentQuestionIndex = 0;
-    private int score = 0;
-    private List<Question> questions;
-    private List<Question> answeredQuestions;
+    // One clock drives the countdown, feedback delays and animations
+    private final TickScheduler ticks = new TickScheduler();
+    private TickScheduler.Handle countdown;
+    private QuizSession session;
     
     // Gen Z Color Palette - Vibrant & Modern
     private Color primaryGradientStart = new Color(138, 43, 226); // BlueViolet
@@ -60,25 +61,56 @@ public class QuizGUI extends JFrame {
     private Color darkAccent = new Color(255, 0, 255); // Magenta
     
     private boolean isDarkMode = false;
+    private final ThemeRegistry themes = new ThemeRegistry();
+    private final ThemeRegistry.Palette lightPalette =
+        new ThemeRegistry.Palette(backgroundColor, surfaceColor, cardColor, textColor);
+    private final ThemeRegistry.Palette darkPalette =
+        new ThemeRegistry.Palette(darkBg, darkSurface, darkCard, textColor);
     private JButton themeToggleButton;
     private JButton soundToggleButton;
     private JLabel difficultyLabel;
     private JProgressBar timeProgressBar;
-    private Timer animationTimer;
-    private float animationProgress = 0f;
+    private TickScheduler.Handle questionAnimation;
+    private TickScheduler.Handle pendingAdvance; // Shows the next question after the feedback delay
+    private Image gradientIcon;
     private boolean isPracticeMode = false;
-    private int hintsRemaining = 3;
     private JButton hintButton;
     private JLabel hintsLabel;
     private JButton practiceModeButton;
+    // Spaced-repetition quizzes of the player's due questions instead of adaptive ones
+    private boolean isReviewMode = false;
+    private JButton reviewModeButton;
     private JComboBox<String> categoryComboBox;
-    private Map<String, Integer> highScores = new HashMap<>();
+    // Best score so far, loaded from the attempts history at startup
+    private int highScore = 0;
     private JLabel highScoreLabel;
+    private final String playerName = System.getProperty("quiz.user", System.getProperty("user.name", "player"));
+    private long quizStartedMillis;
+    private String quizCategory = AttemptStore.ALL_CATEGORIES;
+    private static final String ALL_CATEGORIES_LABEL = "📚 All Categories";
     
-    // Remove sound clip variables
     private boolean soundEnabled = true;
+    private final SoundEngine soundEngine = new SoundEngine();
 
     private static final int QUESTIONS_PER_QUIZ = 10; // Number of questions to show in each quiz
+    private static final int PREFETCH_AT_QUESTION = 5; // Start preparing the next quiz at this question
+    private static final long FEEDBACK_DELAY_MS = 1000; // Answer feedback shown before the next question
+    private static final long QUESTION_ANIMATION_MS = 320;
+    
+    // Asynchronous question loading
+    private final QuestionLoader questionLoader = new QuestionLoader();
+    private final QuestionPrefetcher prefetcher = new QuestionPrefetcher(this::fetchQuiz, PREFETCH_AT_QUESTION);
+    private CompletableFuture<List<Question>> pendingLoad;
+    
+    // Quiz rules and scoring live in the engine; this class only renders a session
+    private final QuizEngine quizEngine = new QuizEngine();
+    private final QuizListener sessionListener = new QuizListener() {
+        @Override
+        public void onTimeUp(QuizSession timedOut, QuestionAttempt attempt) {
+            SwingUtilities.invokeLater(() -> handleTimeUp(timedOut));
+        }
+    };
+    private String loadingReturnCard = "WELCOME";
 
     public QuizGUI() {
         setTitle("🔥 Quiz Beast - Level Up Your Knowledge 🚀");
@@ -87,9 +119,14 @@ public class QuizGUI extends JFrame {
         setLocationRelativeTo(null);
         setResizable(false);
         
+        // Opt-in paint instrumentation: frame time and repainted area
+        if (Boolean.getBoolean("quiz.paintStats")) {
+            PaintMonitor.install().setLogging(true);
+        }
+        
         // Set custom icon and styling
         try {
-            setIconImage(createGradientIcon());
+            setIconImage(getGradientIcon());
         } catch (Exception e) {
             System.out.println("Could not set custom icon");
         }
@@ -101,11 +138,74 @@ public class QuizGUI extends JFrame {
         setupQuizPanel();
         setupResultPanel();
         setupReviewPanel();
+        setupLoadingPanel();
+
+        // Register themed components once; later additions are picked up as they happen
+        themes.exclude(themeToggleButton);
+        themes.track(mainPanel);
 
         // Show welcome panel
         cardLayout.show(mainPanel, "WELCOME");
+        DatabaseConnector.enableOfflineStore(); // Keep playing from a local copy if MySQL goes away
+        loadCategories();
+        loadHighScore();
+    }
+
+    private void loadHighScore() {
+        String category = attemptCategory();
+        questionLoader.loadHighScore(playerName, category)
+            .thenAccept(best -> SwingUtilities.invokeLater(() -> {
+                if (category.equals(attemptCategory()) && best > highScore) {
+                    highScore = best;
+                    highScoreLabel.setText("🎖️ High Score: " + best);
+                }
+            }));
+    }
+
+    /**
+     * Fills the category picker once the category index is available; quizzes use all categories until then
+     */
+    private void loadCategories() {
+        questionLoader.loadCategories().whenComplete((counts, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                System.out.println("Categories unavailable: " + QuestionLoader.unwrap(error).getMessage());
+                return;
+            }
+            for (Map.Entry<String, Integer> category : counts.entrySet()) {
+                if (!category.getKey().isEmpty()) {
+                    categoryComboBox.addItem(category.getKey());
+                }
+            }
+        }));
+    }
+
+    /**
+     * The selected category, or null for all of them
+     */
+    private String selectedCategory() {
+        return categoryComboBox.getSelectedIndex() > 0 ? (String) categoryComboBox.getSelectedItem() : null;
+    }
+
+    private String attemptCategory() {
+        String category = selectedCategory();
+        return category == null ? AttemptStore.ALL_CATEGORIES : category;
+    }
+
+    private void onCategoryChanged() {
+        // A set prepared for the previous category must not be served
+        prefetcher.discard();
+        highScore = 0;
+        highScoreLabel.setText("🎖️ High Score: 0");
+        loadHighScore();
     }
     
+    private Image getGradientIcon() {
+        if (gradientIcon == null) {
+            gradientIcon = createGradientIcon();
+        }
+        return gradientIcon;
+    }
+
     private Image createGradientIcon() {
         BufferedImage icon = new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB);
         Graphics2D g2d = icon.createGraphics();
@@ -169,25 +269,21 @@ public class QuizGUI extends JFrame {
         timeProgressBar = new JProgressBar(0, 100);
         styleProgressBar(timeProgressBar);
         
-        // Animation timer with smoother transitions
-        animationTimer = new Timer(16, e -> {
-            animationProgress += 0.05f;
-            if (animationProgress >= 1f) {
-                animationProgress = 0f;
-                ((Timer)e.getSource()).stop();
-            }
-            repaint();
-        });
-
         practiceModeButton = createStyledButton("🧠 Practice Mode", false);
         practiceModeButton.addActionListener(e -> togglePracticeMode());
         
+        reviewModeButton = createStyledButton("🔁 Spaced Repetition", false);
+        reviewModeButton.addActionListener(e -> toggleReviewMode());
+        reviewModeButton.setToolTipText("Repeat the questions that are due for review");
+        
+        categoryComboBox = new JComboBox<>(new String[] {ALL_CATEGORIES_LABEL});
+        categoryComboBox.setFont(new Font("SF Pro Display", Font.PLAIN, 16));
+        categoryComboBox.setToolTipText("Quiz topic");
+        categoryComboBox.addActionListener(e -> onCategoryChanged());
+        
         highScoreLabel = new JLabel("🎖️ High Score: 0");
         highScoreLabel.setFont(new Font("SF Pro Display", Font.BOLD, 18));
         highScoreLabel.setForeground(accentColor);
-        
-        questions = new ArrayList<>();
-        answeredQuestions = new ArrayList<>();
     }
     
     private JButton createStyledButton(String text, boolean isPrimary) {
@@ -215,32 +311,16 @@ public class QuizGUI extends JFrame {
             }
         });
         
-        // Custom painting for gradient buttons
+        // Custom painting for gradient buttons, with a subtle shadow
         button.setUI(new javax.swing.plaf.basic.BasicButtonUI() {
+            private final GradientCache background = new GradientCache(25, true, new Color(0, 0, 0, 30));
+            
             @Override
             public void paint(Graphics g, JComponent c) {
-                Graphics2D g2d = (Graphics2D) g.create();
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                
-                int width = c.getWidth();
-                int height = c.getHeight();
-                
-                // Create gradient
-                GradientPaint gradient;
-                if (isPrimary) {
-                    gradient = new GradientPaint(0, 0, primaryGradientStart, width, height, primaryGradientEnd);
-                } else {
-                    gradient = new GradientPaint(0, 0, secondaryGradientStart, width, height, secondaryGradientEnd);
-                }
-                
-                g2d.setPaint(gradient);
-                g2d.fillRoundRect(0, 0, width, height, 25, 25);
-                
-                // Add subtle shadow effect
-                g2d.setColor(new Color(0, 0, 0, 30));
-                g2d.fillRoundRect(2, 2, width, height, 25, 25);
-                
-                g2d.dispose();
+                Image image = isPrimary
+                    ? background.get(c.getGraphicsConfiguration(), c.getWidth(), c.getHeight(), primaryGradientStart, primaryGradientEnd)
+                    : background.get(c.getGraphicsConfiguration(), c.getWidth(), c.getHeight(), secondaryGradientStart, secondaryGradientEnd);
+                g.drawImage(image, 0, 0, null);
                 super.paint(g, c);
             }
         });
@@ -319,66 +399,33 @@ public class QuizGUI extends JFrame {
         
         // Custom UI for rounded progress bar
         progressBar.setUI(new javax.swing.plaf.basic.BasicProgressBarUI() {
+            // Redrawn only when the size, colors or progress width change
+            private final GradientCache track = new GradientCache(-1, false, null);
+            private final GradientCache fill = new GradientCache(-1, false, null);
+            
             @Override
             protected void paintDeterminate(Graphics g, JComponent c) {
-                Graphics2D g2d = (Graphics2D) g.create();
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                
                 int width = c.getWidth();
                 int height = c.getHeight();
                 
                 // Background
-                g2d.setColor(surfaceColor);
-                g2d.fillRoundRect(0, 0, width, height, height, height);
+                g.drawImage(track.get(c.getGraphicsConfiguration(), width, height, surfaceColor, surfaceColor), 0, 0, null);
                 
                 // Progress
                 int progressWidth = (int) (width * (progressBar.getPercentComplete()));
-                GradientPaint gradient = new GradientPaint(0, 0, primaryGradientStart, progressWidth, 0, primaryGradientEnd);
-                g2d.setPaint(gradient);
-                g2d.fillRoundRect(0, 0, progressWidth, height, height, height);
-                
-                g2d.dispose();
+                if (progressWidth > 0) {
+                    g.drawImage(fill.get(c.getGraphicsConfiguration(), progressWidth, height,
+                        primaryGradientStart, primaryGradientEnd), 0, 0, null);
+                }
             }
         });
     }
 
-    private void playSound(String soundType) {
+    private void playSound(SoundEngine.Effect effect) {
         if (!soundEnabled) return;
         
-        try {
-            switch (soundType) {
-                case "correct":
-                    // Play system beep once for correct answer
-                    Toolkit.getDefaultToolkit().beep();
-                    break;
-                case "incorrect":
-                    // Play system beep twice with different frequency for incorrect
-                    Toolkit.getDefaultToolkit().beep();
-                    try { Thread.sleep(200); } catch (InterruptedException e) {}
-                    Toolkit.getDefaultToolkit().beep();
-                    break;
-                case "submit":
-                    // Play system beep three times with increasing frequency for submit
-                    for (int i = 0; i < 3; i++) {
-                        Toolkit.getDefaultToolkit().beep();
-                        try { Thread.sleep(150); } catch (InterruptedException e) {}
-                    }
-                    break;
-                case "timeup":
-                    // Play system beep four times with decreasing frequency for time up
-                    for (int i = 0; i < 4; i++) {
-                        Toolkit.getDefaultToolkit().beep();
-                        try { Thread.sleep(100); } catch (InterruptedException e) {}
-                    }
-                    break;
-                case "click":
-                    // Play a single beep for button clicks
-                    Toolkit.getDefaultToolkit().beep();
-                    break;
-            }
-        } catch (Exception e) {
-            System.out.println("Error playing sound: " + e.getMessage());
-        }
+        // Played on the sound engine's own thread; never blocks the EDT
+        soundEngine.play(effect);
     }
 
     private void setupLayout() {
@@ -428,7 +475,9 @@ public class QuizGUI extends JFrame {
         // Control buttons panel
         JPanel controlsPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 0));
         controlsPanel.setBackground(backgroundColor);
+        controlsPanel.add(categoryComboBox);
         controlsPanel.add(practiceModeButton);
+        controlsPanel.add(reviewModeButton);
 
         contentPanel.add(emojiLabel);
         contentPanel.add(Box.createVerticalStrut(20));
@@ -588,17 +637,29 @@ public class QuizGUI extends JFrame {
         backButton.addActionListener(e -> cardLayout.show(mainPanel, "RESULT"));
         headerPanel.add(backButton, BorderLayout.EAST);
 
-        // Center panel with scrollable content
-        JPanel centerPanel = new JPanel();
-        centerPanel.setLayout(new BoxLayout(centerPanel, BoxLayout.Y_AXIS));
-        centerPanel.setBackground(backgroundColor);
-
-        JScrollPane scrollPane = new JScrollPane(centerPanel);
+        // Virtualized list: one shared renderer paints only the visible rows
+        ReviewCellRenderer renderer = new ReviewCellRenderer();
+        reviewList = new JList<>(reviewModel);
+        reviewList.setCellRenderer(renderer);
+        reviewList.setBackground(backgroundColor);
+        reviewList.setFocusable(false);
+        // Fixed cell sizes keep JList from measuring every row on layout
+        reviewList.setFixedCellHeight(renderer.getCellHeight());
+        reviewList.setFixedCellWidth(800);
+
+        JScrollPane scrollPane = new JScrollPane(reviewList);
         scrollPane.setBackground(backgroundColor);
         scrollPane.getViewport().setBackground(backgroundColor);
         scrollPane.setBorder(null);
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
         scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(renderer.getCellHeight() / 4);
+        scrollPane.getViewport().addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                reviewList.setFixedCellWidth(scrollPane.getViewport().getWidth());
+            }
+        });
 
         reviewPanel.add(headerPanel, BorderLayout.NORTH);
         reviewPanel.add(scrollPane, BorderLayout.CENTER);
@@ -606,83 +667,163 @@ public class QuizGUI extends JFrame {
         mainPanel.add(reviewPanel, "REVIEW");
     }
 
+    private void setupLoadingPanel() {
+        loadingPanel = new JPanel();
+        loadingPanel.setLayout(new BoxLayout(loadingPanel, BoxLayout.Y_AXIS));
+        loadingPanel.setBackground(backgroundColor);
+        loadingPanel.setBorder(BorderFactory.createEmptyBorder(200, 50, 200, 50));
+
+        JLabel loadingLabel = new JLabel("⏳ Loading questions...", SwingConstants.CENTER);
+        loadingLabel.setFont(new Font("SF Pro Display", Font.BOLD, 28));
+        loadingLabel.setForeground(textColor);
+        loadingLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        JProgressBar loadingBar = new JProgressBar();
+        loadingBar.setIndeterminate(true);
+        loadingBar.setMaximumSize(new Dimension(300, 8));
+        loadingBar.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        JButton cancelButton = createStyledButton("✖️ Cancel", false);
+        cancelButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        cancelButton.setPreferredSize(new Dimension(180, 50));
+        cancelButton.addActionListener(e -> cancelLoading());
+
+        loadingPanel.add(loadingLabel);
+        loadingPanel.add(Box.createVerticalStrut(30));
+        loadingPanel.add(loadingBar);
+        loadingPanel.add(Box.createVerticalStrut(40));
+        loadingPanel.add(cancelButton);
+
+        mainPanel.add(loadingPanel, "LOADING");
+    }
+
     private void startQuiz() {
-        try {
-            // Fetch questions from database
-            List<Question> allQuestions = DatabaseConnector.getQuestions();
-            
-            if (allQuestions.isEmpty()) {
-                JOptionPane.showMessageDialog(this, "No questions available in the database.");
-                return;
-            }
-            
-            // Randomly select questions for this quiz
-            questions = selectRandomQuestions(allQuestions, QUESTIONS_PER_QUIZ);
-            
-            // Shuffle the options for each question
-            for (Question question : questions) {
-                shuffleOptions(question);
-            }
-            
-            answeredQuestions = new ArrayList<>();
-            currentQuestionIndex = 0;
-            score = 0;
-            updateScoreLabel();
-            displayQuestion();
-            startTimer();
-            cardLayout.show(mainPanel, "QUIZ");
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error connecting to database: " + e.getMessage());
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error loading questions: " + e.getMessage());
+        loadQuestions("WELCOME", this::beginQuiz, "Error loading questions: ");
+    }
+
+    private void beginQuiz(List<Question> candidates) {
+        if (candidates.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No questions available in the database.");
+            cardLayout.show(mainPanel, "WELCOME");
+            return;
         }
+        
+        startSession(candidates);
+        updateScoreLabel();
+        displayQuestion();
+        startTimer();
+        cardLayout.show(mainPanel, "QUIZ");
     }
 
-    private List<Question> selectRandomQuestions(List<Question> allQuestions, int count) {
-        List<Question> selectedQuestions = new ArrayList<>(allQuestions);
-        Collections.shuffle(selectedQuestions);
-        return selectedQuestions.subList(0, Math.min(count, selectedQuestions.size()));
+    /**
+     * Replaces the current session with an adaptive one that picks its
+     * questions from the candidates as the player answers, or in review
+     * mode with one on the scheduled questions
+     */
+    private void startSession(List<Question> candidates) {
+        if (session != null) {
+            quizEngine.endSession(session.getId());
+        }
+        session = isReviewMode
+            ? quizEngine.startReviewSession(playerName, candidates, !isPracticeMode, sessionListener)
+            : quizEngine.startAdaptiveSession(candidates, QUESTIONS_PER_QUIZ, !isPracticeMode, sessionListener);
+        quizStartedMillis = System.currentTimeMillis();
+        quizCategory = attemptCategory();
     }
 
-    private void shuffleOptions(Question question) {
-        String[] options = question.getOptions();
-        String correctAnswer = question.getCorrectAnswer();
-        
-        // Create a list of option indices
-        List<Integer> indices = new ArrayList<>();
-        for (int i = 0; i < options.length; i++) {
-            indices.add(i);
+    /**
+     * Fetches the next quiz's candidate questions, with their statistics, on the loader executor
+     */
+    private CompletableFuture<List<Question>> fetchQuiz() {
+        String category = selectedCategory();
+        if (isReviewMode) {
+            QuizSpec spec = category == null
+                ? new QuizSpec(QUESTIONS_PER_QUIZ)
+                : new QuizSpec(QUESTIONS_PER_QUIZ, Collections.singleton(category), null);
+            return questionLoader.loadReview(playerName, spec, quizEngine.getReviewScheduler());
         }
-        
-        // Shuffle the indices
-        Collections.shuffle(indices);
-        
-        // Create new arrays for shuffled options
-        String[] shuffledOptions = new String[options.length];
-        for (int i = 0; i < indices.size(); i++) {
-            shuffledOptions[i] = options[indices.get(i)];
+        // Adaptive quizzes trade a larger fetch for a choice of difficulty; see Config.adaptivePoolFactor
+        int poolSize = QUESTIONS_PER_QUIZ * quizEngine.getConfig().adaptivePoolFactor;
+        QuizSpec spec = category == null
+            ? new QuizSpec(poolSize)
+            : new QuizSpec(poolSize, Collections.singleton(category), null);
+        return questionLoader.loadPool(spec, quizEngine.getDifficultyModel());
+    }
+
+    /**
+     * Loads questions off the EDT and hands them to onLoaded on the EDT
+     */
+    private void loadQuestions(String returnCard, Consumer<List<Question>> onLoaded, String errorPrefix) {
+        if (pendingLoad != null && !pendingLoad.isDone()) {
+            return; // A load is already in flight
         }
         
-        // Update the question with shuffled options
-        question.setOptions(shuffledOptions);
+        // Use the set prefetched during the previous quiz, waiting for it when it is still loading
+        CompletableFuture<List<Question>> prefetched = prefetcher.take();
+        if (prefetched != null && prefetched.isDone() && !prefetched.isCompletedExceptionally()
+                && prefetched.join() != null) {
+            onLoaded.accept(prefetched.join());
+            return;
+        }
         
-        // Update the correct answer index
-        for (int i = 0; i < shuffledOptions.length; i++) {
-            if (shuffledOptions[i].equals(correctAnswer)) {
-                question.setCorrectAnswer(shuffledOptions[i]);
-                break;
+        loadingReturnCard = returnCard;
+        cardLayout.show(mainPanel, "LOADING");
+        startLoad(prefetched != null ? prefetched : fetchQuiz(), returnCard, onLoaded, errorPrefix);
+    }
+
+    /**
+     * Waits for a load off the EDT; a null result, from an unusable prefetch, starts a normal fetch
+     */
+    private void startLoad(CompletableFuture<List<Question>> load, String returnCard,
+                           Consumer<List<Question>> onLoaded, String errorPrefix) {
+        pendingLoad = load;
+        load.whenComplete((loaded, error) -> SwingUtilities.invokeLater(() -> {
+            if (load != pendingLoad || load.isCancelled()) {
+                return; // Cancelled or superseded
+            }
+            pendingLoad = null;
+            
+            if (error == null && loaded == null) {
+                startLoad(fetchQuiz(), returnCard, onLoaded, errorPrefix);
+                return;
             }
+            if (error == null) {
+                try {
+                    onLoaded.accept(loaded);
+                } catch (Exception e) {
+                    cardLayout.show(mainPanel, returnCard);
+                    JOptionPane.showMessageDialog(this, errorPrefix + e.getMessage());
+                }
+                return;
+            }
+            
+            cardLayout.show(mainPanel, returnCard);
+            Throwable cause = QuestionLoader.unwrap(error);
+            if (cause instanceof SQLException) {
+                JOptionPane.showMessageDialog(this, "Error connecting to database: " + cause.getMessage());
+            } else {
+                JOptionPane.showMessageDialog(this, errorPrefix + cause.getMessage());
+            }
+        }));
+    }
+
+    private void cancelLoading() {
+        if (pendingLoad != null) {
+            pendingLoad.cancel(false);
+            pendingLoad = null;
         }
+        cardLayout.show(mainPanel, loadingReturnCard);
     }
 
     private void displayQuestion() {
-        if (currentQuestionIndex < questions.size()) {
-            Question question = questions.get(currentQuestionIndex);
+        QuestionAttempt question = session.getCurrentQuestion();
+        if (question != null) {
+            int currentQuestionIndex = session.getCurrentIndex();
+            int questionCount = session.getQuestionCount();
             questionLabel.setText("<html><div style='text-align: center;'>" + question.getQuestionText() + "</div></html>");
             
-            String[] options = question.getOptions();
             for (int i = 0; i < 4; i++) {
-                optionButtons[i].setText(options[i]);
+                optionButtons[i].setText(question.getOption(i));
                 optionButtons[i].setSelected(false);
                 optionButtons[i].setEnabled(true);
                 // Reset styling
@@ -690,85 +831,118 @@ public class QuizGUI extends JFrame {
                 optionButtons[i].setForeground(textColor);
             }
             
-            progressBar.setValue((currentQuestionIndex * 100) / questions.size());
-            progressBar.setString(String.format("Question %d of %d", currentQuestionIndex + 1, questions.size()));
+            progressBar.setValue((currentQuestionIndex * 100) / questionCount);
+            progressBar.setString(String.format("Question %d of %d", currentQuestionIndex + 1, questionCount));
             
-            animationProgress = 0f;
-            animationTimer.start();
+            if (questionAnimation != null) {
+                questionAnimation.cancel();
+            }
+            questionAnimation = ticks.animate(QUESTION_ANIMATION_MS, this::applyTransition);
+            applyTransition(0f);
         } else {
             showResults();
         }
     }
 
-    private void processAnswer() {
-        if (currentQuestionIndex >= questions.size()) {
-            showResults();
-            return;
+    /**
+     * Fades the question text and options in. Only their foreground changes,
+     * so Swing repaints just those components rather than the whole frame.
+     */
+    private void applyTransition(float progress) {
+        Color faded = blend(cardColor, textColor, progress);
+        questionLabel.setForeground(faded);
+        for (JRadioButton button : optionButtons) {
+            // Leave hovered and answered buttons alone
+            if (button.isEnabled() && cardColor.equals(button.getBackground())) {
+                button.setForeground(faded);
+            }
         }
+    }
 
-        Question question = questions.get(currentQuestionIndex);
-        String selectedAnswer = getSelectedAnswer();
+    private static Color blend(Color from, Color to, float amount) {
+        float keep = 1f - amount;
+        return new Color(
+            Math.round(from.getRed() * keep + to.getRed() * amount),
+            Math.round(from.getGreen() * keep + to.getGreen() * amount),
+            Math.round(from.getBlue() * keep + to.getBlue() * amount));
+    }
+
+    /**
+     * Answers the current question with the option in the given display slot
+     */
+    private void processAnswer(int selectedIndex) {
+        QuizSession.AnswerResult result = session.answer(selectedIndex);
+        if (result == null) {
+            return; // Time ran out first
+        }
         
-        if (selectedAnswer != null) {
-            question.setUserAnswer(selectedAnswer);
-            answeredQuestions.add(question);
-            
-            // Visual feedback
-            for (JRadioButton button : optionButtons) {
-                button.setEnabled(false);
-                if (button.isSelected()) {
-                    if (selectedAnswer.equals(question.getCorrectAnswer())) {
-                        button.setBackground(accentColor);
-                        button.setForeground(Color.WHITE);
-                        playSound("correct");
-                    } else {
-                        button.setBackground(errorColor);
-                        button.setForeground(Color.WHITE);
-                        playSound("incorrect");
-                    }
-                }
-            }
+        // Visual feedback
+        for (JRadioButton button : optionButtons) {
+            button.setEnabled(false);
+        }
+        JRadioButton button = optionButtons[selectedIndex];
+        if (result.correct) {
+            button.setBackground(accentColor);
+            button.setForeground(Color.WHITE);
+            playSound(SoundEngine.Effect.CORRECT);
+            updateScoreLabel();
+        } else {
+            button.setBackground(errorColor);
+            button.setForeground(Color.WHITE);
+            playSound(SoundEngine.Effect.INCORRECT);
+        }
+        
+        advance(result.finished);
+    }
 
-            boolean isCorrect = selectedAnswer.equals(question.getCorrectAnswer());
-            if (isCorrect) {
-                score++;
-                updateScoreLabel();
-            }
-            
-            currentQuestionIndex++;
-            if (currentQuestionIndex < questions.size()) {
-                javax.swing.Timer delayTimer = new javax.swing.Timer(1000, new ActionListener() {
-                    @Override
-                    public void actionPerformed(ActionEvent e) {
-                        displayQuestion();
-                        startTimer();
-                    }
-                });
-                delayTimer.setRepeats(false);
-                delayTimer.start();
-            } else {
-                showResults();
-            }
+    /**
+     * Shows the engine's timeout of the current question
+     */
+    private void handleTimeUp(QuizSession timedOut) {
+        if (timedOut != session) {
+            return; // From a session that has since been replaced
         }
+        stopTimer();
+        for (JRadioButton button : optionButtons) {
+            button.setEnabled(false);
+        }
+        playSound(SoundEngine.Effect.TIMEUP);
+        advance(session.isFinished());
     }
 
-    private void submitQuiz() {
-        if (currentQuestionIndex < questions.size()) {
-            // If there are remaining questions, add them as unanswered
-            for (int i = currentQuestionIndex; i < questions.size(); i++) {
-                Question question = questions.get(i);
-                question.setUserAnswer("No Answer");
-                answeredQuestions.add(question);
-            }
+    private void advance(boolean finished) {
+        prefetcher.onProgress(session.getCurrentIndex());
+        if (!finished) {
+            QuizSession current = session;
+            pendingAdvance = ticks.schedule(FEEDBACK_DELAY_MS, () -> {
+                if (current != session || current.isFinished()) {
+                    return; // Replaced, or submitted during the feedback delay
+                }
+                displayQuestion();
+                session.beginQuestion();
+                startTimer();
+            });
+        } else {
+            showResults();
         }
-        playSound("submit");
+    }
+
+    private void submitQuiz() {
+        // Remaining questions are recorded as skipped
+        session.submit();
+        playSound(SoundEngine.Effect.SUBMIT);
         showResults();
     }
 
     private void showResults() {
-        if (timer != null) {
-            timer.stop();
+        stopTimer();
+        if (pendingAdvance != null) {
+            pendingAdvance.cancel();
+            pendingAdvance = null;
         }
+        
+        // Quizzes submitted early still get their next set prepared
+        prefetcher.onProgress(session.getQuestionCount());
 
         JPanel contentPanel = (JPanel) resultPanel.getComponent(0);
         contentPanel.removeAll();
@@ -785,10 +959,8 @@ public class QuizGUI extends JFrame {
         resultLabel.setForeground(accentColor);
         resultLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
 
-        // Calculate answered questions count
-        int answeredCount = (int) answeredQuestions.stream()
-            .filter(q -> q.getUserAnswer() != null && !q.getUserAnswer().equals("No Answer"))
-            .count();
+        int score = session.getScore();
+        int answeredCount = session.getAnsweredCount();
 
         JLabel finalScoreLabel = new JLabel(String.format("Your Score: %d/%d", score, answeredCount), SwingConstants.CENTER);
         finalScoreLabel.setFont(new Font("SF Pro Display", Font.BOLD, 28));
@@ -819,7 +991,7 @@ public class QuizGUI extends JFrame {
         incorrectAnswers.setForeground(errorColor);
         incorrectAnswers.setAlignmentX(Component.CENTER_ALIGNMENT);
 
-        JLabel unansweredQuestions = new JLabel(String.format("⏭️ Unanswered Questions: %d", questions.size() - answeredCount), SwingConstants.CENTER);
+        JLabel unansweredQuestions = new JLabel(String.format("⏭️ Unanswered Questions: %d", session.getQuestionCount() - answeredCount), SwingConstants.CENTER);
         unansweredQuestions.setFont(new Font("SF Pro Display", Font.PLAIN, 16));
         unansweredQuestions.setForeground(mutedText);
         unansweredQuestions.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -864,10 +1036,14 @@ public class QuizGUI extends JFrame {
         contentPanel.revalidate();
         contentPanel.repaint();
 
-        // Update high score if needed
-        int currentHighScore = highScores.getOrDefault("default", 0);
-        if (score > currentHighScore) {
-            highScores.put("default", score);
+        // Written behind by the attempt store, so this never waits on the database
+        if (session.markResultRecorded()) {
+            long now = System.currentTimeMillis();
+            DatabaseConnector.recordAttempt(new AttemptStore.Attempt(playerName, quizCategory,
+                score, session.getQuestionCount(), now - quizStartedMillis, now));
+        }
+        if (score > highScore) {
+            highScore = score;
             highScoreLabel.setText("🎖️ High Score: " + score);
         }
 
@@ -875,171 +1051,220 @@ public class QuizGUI extends JFrame {
     }
 
     private void showReview() {
-        JPanel centerPanel = (JPanel) ((JScrollPane) reviewPanel.getComponent(1)).getViewport().getView();
-        centerPanel.removeAll();
-        centerPanel.setLayout(new BoxLayout(centerPanel, BoxLayout.Y_AXIS));
-        centerPanel.setBackground(backgroundColor);
-
-        for (Question question : answeredQuestions) {
-            JPanel questionPanel = new JPanel();
-            questionPanel.setLayout(new BoxLayout(questionPanel, BoxLayout.Y_AXIS));
-            questionPanel.setBackground(cardColor);
-            questionPanel.setBorder(BorderFactory.createCompoundBorder(
-                BorderFactory.createLineBorder(new Color(60, 60, 80), 1),
-                BorderFactory.createEmptyBorder(20, 20, 20, 20)
+        reviewModel.setAttempts(session.getAttempts());
+        reviewList.ensureIndexIsVisible(0);
+
+        // Show the review panel
+        cardLayout.show(mainPanel, "REVIEW");
+    }
+
+    /**
+     * Read-only list model over the attempts of a finished session
+     */
+    private static class ReviewListModel extends AbstractListModel<QuestionAttempt> {
+        private static final long serialVersionUID = 1L;
+
+        private List<QuestionAttempt> attempts = Collections.emptyList();
+
+        void setAttempts(List<QuestionAttempt> attempts) {
+            int oldSize = this.attempts.size();
+            this.attempts = attempts;
+            if (oldSize > 0) {
+                fireIntervalRemoved(this, 0, oldSize - 1);
+            }
+            if (!attempts.isEmpty()) {
+                fireIntervalAdded(this, 0, attempts.size() - 1);
+            }
+        }
+
+        @Override
+        public int getSize() {
+            return attempts.size();
+        }
+
+        @Override
+        public QuestionAttempt getElementAt(int index) {
+            return attempts.get(index);
+        }
+    }
+
+    /**
+     * Paints one review card per row. A single instance is reused for every
+     * visible row, so fonts, borders and child components are created once.
+     */
+    private class ReviewCellRenderer extends JPanel implements ListCellRenderer<QuestionAttempt> {
+        private static final long serialVersionUID = 1L;
+        private static final int QUESTION_LINES = 2;
+
+        private final JLabel questionNumber = new JLabel();
+        private final JTextArea questionText = new JTextArea(QUESTION_LINES, 1);
+        private final JLabel statusIcon = new JLabel();
+        private final JLabel userAnswerLabel = new JLabel();
+        private final JLabel correctAnswerLabel = new JLabel();
+        private final int cellHeight;
+
+        ReviewCellRenderer() {
+            setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+            setBackground(cardColor);
+            setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createMatteBorder(0, 0, 20, 0, backgroundColor),
+                BorderFactory.createCompoundBorder(
+                    BorderFactory.createLineBorder(new Color(60, 60, 80), 1),
+                    BorderFactory.createEmptyBorder(20, 20, 20, 20)
+                )
             ));
 
-            // Question number and text
-            JLabel questionNumber = new JLabel("Question " + (answeredQuestions.indexOf(question) + 1));
             questionNumber.setFont(new Font("SF Pro Display", Font.BOLD, 16));
             questionNumber.setForeground(accentColor);
-            questionNumber.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-            JLabel questionLabel = new JLabel("<html><div style='text-align: left;'>" + question.getQuestionText() + "</div></html>");
-            questionLabel.setFont(new Font("SF Pro Display", Font.BOLD, 16));
-            questionLabel.setForeground(textColor);
-            questionLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-            // User's answer
-            JLabel userAnswerLabel = new JLabel("Your Answer: " + (question.getUserAnswer() != null ? question.getUserAnswer() : "No Answer"));
-            userAnswerLabel.setFont(new Font("SF Pro Display", Font.PLAIN, 14));
-            userAnswerLabel.setForeground(question.getUserAnswer() != null && question.getUserAnswer().equals(question.getCorrectAnswer()) ? 
-                accentColor : errorColor);
-            userAnswerLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-            // Correct answer
-            JLabel correctAnswerLabel = new JLabel("Correct Answer: " + question.getCorrectAnswer());
-            correctAnswerLabel.setFont(new Font("SF Pro Display", Font.PLAIN, 14));
-            correctAnswerLabel.setForeground(accentColor);
-            correctAnswerLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
 
-            // Add status icon
-            JLabel statusIcon = new JLabel(question.getUserAnswer() != null && question.getUserAnswer().equals(question.getCorrectAnswer()) ? 
-                "✅" : "❌");
+            // Plain wrapped text is far cheaper to lay out than an HTML label
+            questionText.setFont(new Font("SF Pro Display", Font.BOLD, 16));
+            questionText.setForeground(textColor);
+            questionText.setOpaque(false);
+            questionText.setLineWrap(true);
+            questionText.setWrapStyleWord(true);
+            questionText.setEditable(false);
+            questionText.setBorder(null);
+
             statusIcon.setFont(new Font("Apple Color Emoji", Font.PLAIN, 20));
-            statusIcon.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-            // Add all components to question panel
-            questionPanel.add(questionNumber);
-            questionPanel.add(Box.createVerticalStrut(10));
-            questionPanel.add(questionLabel);
-            questionPanel.add(Box.createVerticalStrut(15));
-            questionPanel.add(statusIcon);
-            questionPanel.add(Box.createVerticalStrut(5));
-            questionPanel.add(userAnswerLabel);
-            questionPanel.add(Box.createVerticalStrut(5));
-            questionPanel.add(correctAnswerLabel);
-
-            // Add question panel to center panel
-            centerPanel.add(questionPanel);
-            centerPanel.add(Box.createVerticalStrut(20));
-        }
+            Font answerFont = new Font("SF Pro Display", Font.PLAIN, 14);
+            userAnswerLabel.setFont(answerFont);
+            correctAnswerLabel.setFont(answerFont);
+            correctAnswerLabel.setForeground(accentColor);
 
-        // Add padding at the bottom
-        centerPanel.add(Box.createVerticalStrut(20));
+            for (JComponent component : new JComponent[] {
+                    questionNumber, questionText, statusIcon, userAnswerLabel, correctAnswerLabel}) {
+                component.setAlignmentX(Component.LEFT_ALIGNMENT);
+            }
 
-        // Refresh the panel
-        centerPanel.revalidate();
-        centerPanel.repaint();
+            add(questionNumber);
+            add(Box.createVerticalStrut(10));
+            add(questionText);
+            add(Box.createVerticalStrut(15));
+            add(statusIcon);
+            add(Box.createVerticalStrut(5));
+            add(userAnswerLabel);
+            add(Box.createVerticalStrut(5));
+            add(correctAnswerLabel);
+
+            // Every row gets room for QUESTION_LINES lines of question text
+            questionNumber.setText("Question 1");
+            statusIcon.setText("✅");
+            userAnswerLabel.setText("Your Answer: ");
+            correctAnswerLabel.setText("Correct Answer: ");
+            int questionHeight = QUESTION_LINES * getFontMetrics(questionText.getFont()).getHeight();
+            questionText.setPreferredSize(new Dimension(1, questionHeight));
+            questionText.setMaximumSize(new Dimension(Integer.MAX_VALUE, questionHeight));
+            cellHeight = getPreferredSize().height;
+        }
 
-        // Show the review panel
-        cardLayout.show(mainPanel, "REVIEW");
+        int getCellHeight() {
+            return cellHeight;
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends QuestionAttempt> list, QuestionAttempt question,
+                                                      int index, boolean isSelected, boolean cellHasFocus) {
+            questionNumber.setText("Question " + (index + 1));
+            questionText.setText(question.getQuestionText());
+            statusIcon.setText(question.isCorrect() ? "✅" : "❌");
+            long timeToAnswerMs = question.getTimeToAnswerMillis();
+            userAnswerLabel.setText("Your Answer: " + describeAnswer(question)
+                + (timeToAnswerMs >= 0 ? String.format("  (%.1fs)", timeToAnswerMs / 1000.0) : ""));
+            userAnswerLabel.setForeground(question.isCorrect() ? accentColor : errorColor);
+            correctAnswerLabel.setText("Correct Answer: " + question.getCorrectAnswer());
+            // Questions too long for the card are shown in full on hover
+            setToolTipText(question.getQuestionText());
+            return this;
+        }
     }
 
     private void resetQuiz() {
-        if (timer != null) {
-            timer.stop();
+        stopTimer();
+        
+        loadQuestions("RESULT", this::restartQuiz, "Error resetting quiz: ");
+    }
+
+    private void restartQuiz(List<Question> candidates) {
+        if (candidates.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No questions available in the database.");
+            cardLayout.show(mainPanel, "RESULT");
+            return;
         }
         
-        try {
-            // Fetch new questions from database
-            List<Question> allQuestions = DatabaseConnector.getQuestions();
-            
-            if (allQuestions.isEmpty()) {
-                JOptionPane.showMessageDialog(this, "No questions available in the database.");
-                return;
-            }
-            
-            // Reset all state variables
-            currentQuestionIndex = 0;
-            score = 0;
-            hintsRemaining = 3;
-            if (hintsLabel != null) {
-                hintsLabel.setText("✨ Hints: " + hintsRemaining);
-            }
-            
-            // Clear answered questions
-            if (answeredQuestions == null) {
-                answeredQuestions = new ArrayList<>();
-            } else {
-                answeredQuestions.clear();
-            }
-            
-            // Reset UI elements
-            for (JRadioButton button : optionButtons) {
-                button.setSelected(false);
-                button.setEnabled(true);
-                button.setBackground(cardColor);
-                button.setForeground(textColor);
-            }
-            
-            // Select new random questions
-            questions = selectRandomQuestions(allQuestions, QUESTIONS_PER_QUIZ);
-            
-            // Shuffle options for each question
-            for (Question question : questions) {
-                shuffleOptions(question);
-            }
-            
-            // Update UI
-            updateScoreLabel();
-            displayQuestion();
-            startTimer();
-            
-            // Show quiz panel
-            cardLayout.show(mainPanel, "QUIZ");
-            
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error connecting to database: " + e.getMessage());
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error resetting quiz: " + e.getMessage());
+        // A fresh session resets score, progress and hints
+        startSession(candidates);
+        if (hintsLabel != null) {
+            hintsLabel.setText("✨ Hints: " + session.getHintsRemaining());
+        }
+        
+        // Reset UI elements
+        for (JRadioButton button : optionButtons) {
+            button.setSelected(false);
+            button.setEnabled(true);
+            button.setBackground(cardColor);
+            button.setForeground(textColor);
         }
+        
+        // Update UI
+        updateScoreLabel();
+        displayQuestion();
+        startTimer();
+        
+        // Show quiz panel
+        cardLayout.show(mainPanel, "QUIZ");
     }
 
-    private String getSelectedAnswer() {
-        for (JRadioButton button : optionButtons) {
-            if (button.isSelected()) {
-                return button.getText();
-            }
+    private String describeAnswer(QuestionAttempt question) {
+        switch (question.getState()) {
+            case ANSWERED:
+                return question.getSelectedAnswer();
+            case TIMED_OUT:
+                return "No Answer (time ran out)";
+            case SKIPPED:
+                return "No Answer (skipped)";
+            default:
+                return "No Answer";
         }
-        return null;
     }
 
+    /**
+     * Shows the session's remaining time; the engine itself times out the question
+     */
     private void startTimer() {
-        timeLeft = 30;
+        stopTimer();
+        if (session.isTimed()) {
+            updateTimerLabel();
+        }
+    }
+
+    private void stopTimer() {
+        if (countdown != null) {
+            countdown.cancel();
+            countdown = null;
+        }
+    }
+
+    /**
+     * Redraws the countdown and re-arms it for the next whole-second boundary
+     * of the session's monotonic deadline, so the display cannot drift
+     */
+    private void updateTimerLabel() {
+        long remainingMs = Math.max(0, session.getRemainingMillis());
+        long timeLeft = (remainingMs + 999) / 1000;
         timerLabel.setText("⏰ " + timeLeft + "s");
-        timeProgressBar.setValue(100);
+        timeProgressBar.setValue((int) (remainingMs * 100 / session.getTimePerQuestionMillis()));
         
-        if (timer != null) {
-            timer.stop();
+        if (remainingMs > 0) {
+            long untilNextSecond = remainingMs % 1000 == 0 ? 1000 : remainingMs % 1000;
+            countdown = ticks.schedule(untilNextSecond, this::updateTimerLabel);
+        } else {
+            countdown = null;
         }
-        
-        timer = new Timer(1000, e -> {
-            timeLeft--;
-            timerLabel.setText("⏰ " + timeLeft + "s");
-            timeProgressBar.setValue((timeLeft * 100) / 30);
-            
-            if (timeLeft <= 0) {
-                timer.stop();
-                playSound("timeup");
-                processAnswer();
-            }
-        });
-        timer.start();
     }
 
     private void updateScoreLabel() {
-        scoreLabel.setText("🏆 Score: " + score);
+        scoreLabel.setText("🏆 Score: " + session.getScore());
     }
 
     private class OptionSelectListener implements ActionListener {
@@ -1049,7 +1274,7 @@ public class QuizGUI extends JFrame {
         }
         @Override
         public void actionPerformed(ActionEvent e) {
-            processAnswer();
+            processAnswer(optionIndex);
         }
     }
 
@@ -1060,65 +1285,32 @@ public class QuizGUI extends JFrame {
     }
     
     private void updateTheme() {
-        Color bgColor = isDarkMode ? darkBg : backgroundColor;
-        Color surfaceColor = isDarkMode ? darkSurface : this.surfaceColor;
-        Color cardColor = isDarkMode ? darkCard : this.cardColor;
-        Color accentColor = isDarkMode ? darkAccent : this.accentColor;
-        
-        mainPanel.setBackground(bgColor);
-        welcomePanel.setBackground(bgColor);
-        quizPanel.setBackground(bgColor);
-        resultPanel.setBackground(bgColor);
-        reviewPanel.setBackground(bgColor);
-        
-        // Update all components' colors
-        updateComponentColors(bgColor, surfaceColor, cardColor, accentColor);
+        themes.apply(isDarkMode ? darkPalette : lightPalette);
     }
-    
-    private void updateComponentColors(Color bgColor, Color surfaceColor, Color cardColor, Color accentColor) {
-        for (Component comp : getAllComponents(mainPanel)) {
-            if (comp instanceof JLabel) {
-                ((JLabel)comp).setForeground(textColor);
-            } else if (comp instanceof JButton) {
-                JButton btn = (JButton)comp;
-                if (btn != themeToggleButton) {
-                    btn.setBackground(surfaceColor);
-                    btn.setForeground(textColor);
-                }
-            } else if (comp instanceof JRadioButton) {
-                ((JRadioButton)comp).setForeground(textColor);
-                ((JRadioButton)comp).setBackground(cardColor);
-            } else if (comp instanceof JPanel) {
-                ((JPanel)comp).setBackground(bgColor);
-            }
-        }
-    }
-    
-    private Component[] getAllComponents(Container container) {
-        Component[] components = container.getComponents();
-        ArrayList<Component> allComponents = new ArrayList<>();
-        for (Component comp : components) {
-            allComponents.add(comp);
-            if (comp instanceof Container) {
-                allComponents.addAll(Arrays.asList(getAllComponents((Container)comp)));
-            }
-        }
-        return allComponents.toArray(new Component[0]);
+
+    private void toggleReviewMode() {
+        isReviewMode = !isReviewMode;
+        reviewModeButton.setText(isReviewMode ? "🎯 Adaptive Quiz" : "🔁 Spaced Repetition");
+        // A set prepared for the other mode must not be served
+        prefetcher.discard();
     }
 
     private void togglePracticeMode() {
         isPracticeMode = !isPracticeMode;
         practiceModeButton.setText(isPracticeMode ? "⏱️ Timed Mode" : "🧠 Practice Mode");
+        if (session != null && !session.isFinished()) {
+            session.setTimed(!isPracticeMode);
+        }
         if (isPracticeMode) {
-            if (timer != null) {
-                timer.stop();
-            }
+            stopTimer();
             timerLabel.setVisible(false);
             timeProgressBar.setVisible(false);
         } else {
             timerLabel.setVisible(true);
             timeProgressBar.setVisible(true);
-            startTimer();
+            if (session != null && !session.isFinished()) {
+                startTimer();
+            }
         }
     }
     
@@ -1131,7 +1323,7 @@ public class QuizGUI extends JFrame {
             // If turning sound on, just do it
             soundEnabled = true;
             soundToggleButton.setText("🔊");
-            playSound("click");
+            playSound(SoundEngine.Effect.CLICK);
         } else {
             // If turning sound off, show confirmation
             int choice = JOptionPane.showConfirmDialog(
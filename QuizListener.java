@@ -0,0 +1,22 @@
+/**
+ * Receives quiz session events.
+ *
+ * Callbacks run on the thread that caused the event (the caller of
+ * QuizSession for answers and submits, a QuizEngine timer thread for
+ * timeouts) and must not block; UI clients should hand off to their own
+ * event thread.
+ */
+public interface QuizListener {
+
+    default void onQuestionStarted(QuizSession session, int questionIndex) {
+    }
+
+    default void onAnswered(QuizSession session, QuestionAttempt attempt, boolean correct) {
+    }
+
+    default void onTimeUp(QuizSession session, QuestionAttempt attempt) {
+    }
+
+    default void onFinished(QuizSession session) {
+    }
+}
@@ -0,0 +1,551 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Embedded HTTP/JSON server that lets many players take quizzes at once.
+ *
+ * Each request runs on its own virtual thread when the JVM has them (Java 21+)
+ * and on a cached thread pool otherwise. Session state lives in memory in a
+ * QuizEngine; database access is capped by a semaphore so that thousands of
+ * request threads queue for a few JDBC connections instead of overrunning
+ * the connection pool.
+ *
+ * Endpoints (parameters as query string or form body):
+ *   POST /api/quiz/start   [count] [timed] [category] [adaptive | review user]  starts a session
+ *   POST /api/quiz/answer  session option [question]
+ *   POST /api/quiz/submit  session
+ *   GET  /api/quiz/review  session
+ *   GET  /api/health
+ */
+public class QuizServer {
+    private static final Logger LOGGER = Logger.getLogger(QuizServer.class.getName());
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final int ACCEPT_BACKLOG = 1024; // Connection bursts from a whole class starting at once
+    private static final int DB_PERMITS = Integer.getInteger("quiz.server.dbPermits", 8);
+    private static final long DB_WAIT_MS = 10_000; // Longest a request queues for the database
+    private static final long SESSION_IDLE_MS = 30 * 60 * 1000L;
+    private static final long EVICTION_INTERVAL_MS = 60_000;
+    private static final int MAX_QUESTIONS_PER_QUIZ = 100;
+    private static final int MAX_BODY_BYTES = 64 * 1024; // Form bodies are a few parameters
+    private static final int DEMO_BANK_SIZE = 1000;
+
+    private final QuizEngine engine;
+    private final Semaphore dbPermits = new Semaphore(DB_PERMITS, true);
+    private final ThreadLocal<Boolean> holdingDbPermit = ThreadLocal.withInitial(() -> false);
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final ScheduledExecutorService housekeeper;
+    private final AtomicLong requestsServed = new AtomicLong();
+    private final AtomicLong requestErrors = new AtomicLong();
+    private final AtomicLong dbRejections = new AtomicLong();
+
+    // Starts the next question's clock once the engine times one out
+    private final QuizListener timeoutAdvancer = new QuizListener() {
+        @Override
+        public void onTimeUp(QuizSession session, QuestionAttempt attempt) {
+            session.beginQuestion();
+        }
+    };
+
+    /**
+     * Endpoint logic; returns the JSON response body
+     */
+    private interface Endpoint {
+        String handle(Map<String, String> params) throws Exception;
+    }
+
+    /**
+     * Ends a request with the given HTTP status and message
+     */
+    static class HttpException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    public QuizServer(int port, QuizEngine.QuestionSource source) throws IOException {
+        this(port, source, new QuizEngine.Config());
+    }
+
+    public QuizServer(int port, QuizEngine.QuestionSource source, QuizEngine.Config config) throws IOException {
+        this.engine = new QuizEngine(limited(source), config);
+        this.requestExecutor = newRequestExecutor("quiz-http");
+
+        this.server = HttpServer.create(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        server.setExecutor(requestExecutor);
+        route("POST", "/api/quiz/start", this::startQuiz);
+        route("POST", "/api/quiz/answer", this::answer);
+        route("POST", "/api/quiz/submit", this::submit);
+        route("GET", "/api/quiz/review", this::review);
+        route("GET", "/api/health", params -> health());
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "quiz-http-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::evictSessions, EVICTION_INTERVAL_MS, EVICTION_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a one-thread-per-task executor: virtual threads where available,
+     * otherwise a cached pool of daemon platform threads
+     */
+    static ExecutorService newRequestExecutor(String name) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executor = (ExecutorService) factory.invoke(null);
+            LOGGER.info(name + " using virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadCount = new AtomicInteger();
+            LOGGER.info(name + " using platform threads (virtual threads need Java 21)");
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, name + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Work that queries the database
+     */
+    private interface DbTask<T> {
+        T run() throws SQLException;
+    }
+
+    /**
+     * Wraps a question source so that at most DB_PERMITS fetches run at once
+     */
+    private QuizEngine.QuestionSource limited(QuizEngine.QuestionSource source) {
+        return spec -> withDbPermit(() -> source.fetch(spec));
+    }
+
+    /**
+     * Runs a task under one of the DB_PERMITS permits. Database work nested in
+     * the task, such as the question fetch of a session start, shares its permit.
+     */
+    private <T> T withDbPermit(DbTask<T> task) throws SQLException {
+        if (holdingDbPermit.get()) {
+            return task.run();
+        }
+        boolean acquired;
+        try {
+            acquired = dbPermits.tryAcquire(DB_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the database", e);
+        }
+        if (!acquired) {
+            dbRejections.incrementAndGet();
+            throw new SQLException("Database is busy, try again shortly");
+        }
+        holdingDbPermit.set(true);
+        try {
+            return task.run();
+        } finally {
+            holdingDbPermit.set(false);
+            dbPermits.release();
+        }
+    }
+
+    public void start() {
+        server.start();
+        LOGGER.info("Quiz server listening on port " + server.getAddress().getPort());
+    }
+
+    public void stop() {
+        server.stop(1);
+        housekeeper.shutdownNow();
+        requestExecutor.shutdownNow();
+        engine.shutdown();
+        LOGGER.info("Quiz server stopped");
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void evictSessions() {
+        int removed = engine.evictIdle(SESSION_IDLE_MS);
+        if (removed > 0) {
+            LOGGER.info("Evicted " + removed + " idle quiz sessions");
+        }
+    }
+
+    private void route(String method, String path, Endpoint endpoint) {
+        server.createContext(path, exchange -> {
+            int status = 200;
+            String body;
+            try {
+                if (!method.equals(exchange.getRequestMethod())) {
+                    throw new HttpException(405, "Use " + method);
+                }
+                body = endpoint.handle(parseParams(exchange));
+            } catch (HttpException e) {
+                status = e.status;
+                body = error(e.getMessage());
+            } catch (SQLException e) {
+                status = 503;
+                body = error(e.getMessage());
+                LOGGER.warning("Database error on " + path + ": " + e.getMessage());
+            } catch (Exception e) {
+                status = 500;
+                body = error("Internal error");
+                LOGGER.log(Level.SEVERE, "Error handling " + path, e);
+            }
+
+            if (status >= 400) {
+                requestErrors.incrementAndGet();
+            }
+            requestsServed.incrementAndGet();
+            send(exchange, status, body);
+        });
+    }
+
+    private String startQuiz(Map<String, String> params) throws Exception {
+        int count = intParam(params, "count", engine.getConfig().questionsPerQuiz);
+        if (count < 1 || count > MAX_QUESTIONS_PER_QUIZ) {
+            throw new HttpException(400, "count must be between 1 and " + MAX_QUESTIONS_PER_QUIZ);
+        }
+        boolean timed = !"false".equals(params.get("timed"));
+        String category = params.get("category");
+        QuizSpec spec = category == null || category.isEmpty()
+            ? new QuizSpec(count)
+            : new QuizSpec(count, Arrays.asList(category.split(",")), null);
+
+        boolean adaptive = "true".equals(params.get("adaptive"));
+        boolean review = "true".equals(params.get("review"));
+        String user = params.get("user");
+        if (adaptive && review) {
+            throw new HttpException(400, "adaptive and review quizzes cannot be combined");
+        }
+        if (review && (user == null || user.isEmpty())) {
+            throw new HttpException(400, "review quizzes need a user");
+        }
+
+        // Adaptive and review starts also load statistics and review states, all under one permit
+        QuizSession session;
+        if (adaptive) {
+            session = withDbPermit(() -> engine.startAdaptiveSession(spec, timed, timeoutAdvancer));
+        } else if (review) {
+            session = withDbPermit(() -> engine.startReviewSession(user, spec, timed, timeoutAdvancer));
+        } else {
+            session = engine.startSession(spec, timed, timeoutAdvancer);
+        }
+
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\"session\":").append(quote(session.getId()))
+            .append(",\"questionCount\":").append(session.getQuestionCount())
+            .append(",\"timed\":").append(timed)
+            .append(",\"adaptive\":").append(adaptive)
+            .append(",\"review\":").append(review);
+        if (timed) {
+            json.append(",\"timePerQuestionMs\":").append(session.getTimePerQuestionMillis());
+        }
+        appendState(json, session);
+        return json.append('}').toString();
+    }
+
+    private String answer(Map<String, String> params) throws Exception {
+        QuizSession session = session(params);
+        int option = intParam(params, "option", -1);
+
+        QuizSession.AnswerResult result;
+        synchronized (session) {
+            // A stale question number means the question timed out while the player was answering
+            int question = intParam(params, "question", session.getCurrentIndex());
+            QuestionAttempt current = session.getCurrentQuestion();
+            if (current == null || question != session.getCurrentIndex()) {
+                throw new HttpException(409, "Question " + question + " is no longer open");
+            }
+            if (option < 0 || option >= current.getOptionCount()) {
+                throw new HttpException(400, "option must be between 0 and " + (current.getOptionCount() - 1));
+            }
+            result = session.answer(option);
+            session.beginQuestion();
+        }
+
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\"correct\":").append(result.correct)
+            .append(",\"correctIndex\":").append(result.attempt.getCorrectIndex())
+            .append(",\"correctAnswer\":").append(quote(result.attempt.getCorrectAnswer()));
+        appendState(json, session);
+        return json.append('}').toString();
+    }
+
+    private String submit(Map<String, String> params) throws Exception {
+        QuizSession session = session(params);
+        session.submit();
+        StringBuilder json = new StringBuilder(128);
+        json.append('{');
+        appendTotals(json, session);
+        return json.append('}').toString();
+    }
+
+    private String review(Map<String, String> params) throws Exception {
+        QuizSession session = session(params);
+        if (!session.isFinished()) {
+            throw new HttpException(409, "Quiz is still in progress");
+        }
+
+        List<QuestionAttempt> attempts = session.getAttempts();
+        StringBuilder json = new StringBuilder(256 * attempts.size());
+        json.append('{');
+        appendTotals(json, session);
+        json.append(",\"questions\":[");
+        for (int i = 0; i < attempts.size(); i++) {
+            QuestionAttempt attempt = attempts.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"question\":").append(quote(attempt.getQuestionText()))
+                .append(",\"state\":").append(quote(attempt.getState().name()))
+                .append(",\"yourAnswer\":").append(quote(attempt.getSelectedAnswer()))
+                .append(",\"correctAnswer\":").append(quote(attempt.getCorrectAnswer()))
+                .append(",\"correct\":").append(attempt.isCorrect())
+                .append(",\"timeToAnswerMs\":").append(attempt.getTimeToAnswerMillis())
+                .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private String health() {
+        return "{\"activeSessions\":" + engine.getActiveSessionCount() +
+            ",\"sessionsStarted\":" + engine.getSessionsStarted() +
+            ",\"requestsServed\":" + requestsServed.get() +
+            ",\"requestErrors\":" + requestErrors.get() +
+            ",\"dbPermitsAvailable\":" + dbPermits.availablePermits() +
+            ",\"dbQueueLength\":" + dbPermits.getQueueLength() +
+            ",\"dbRejections\":" + dbRejections.get() + "}";
+    }
+
+    private QuizSession session(Map<String, String> params) throws HttpException {
+        String id = params.get("session");
+        if (id == null) {
+            throw new HttpException(400, "session is required");
+        }
+        QuizSession session = engine.getSession(id);
+        if (session == null) {
+            throw new HttpException(404, "Unknown or expired session");
+        }
+        return session;
+    }
+
+    /**
+     * Appends the open question (or null once finished) and running score
+     */
+    private static void appendState(StringBuilder json, QuizSession session) {
+        synchronized (session) {
+            json.append(",\"score\":").append(session.getScore())
+                .append(",\"finished\":").append(session.isFinished());
+            QuestionAttempt current = session.getCurrentQuestion();
+            if (current == null) {
+                json.append(",\"question\":null");
+                return;
+            }
+            json.append(",\"question\":{\"index\":").append(session.getCurrentIndex())
+                .append(",\"text\":").append(quote(current.getQuestionText()))
+                .append(",\"optionCount\":").append(current.getOptionCount())
+                .append(",\"options\":[");
+            for (int i = 0; i < current.getOptionCount(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append(quote(current.getOption(i)));
+            }
+            json.append("]}");
+        }
+    }
+
+    private static void appendTotals(StringBuilder json, QuizSession session) {
+        json.append("\"score\":").append(session.getScore())
+            .append(",\"answered\":").append(session.getAnsweredCount())
+            .append(",\"questionCount\":").append(session.getQuestionCount())
+            .append(",\"finished\":").append(session.isFinished());
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2);
+        quoted.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) throws HttpException {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new HttpException(400, name + " must be a number");
+        }
+    }
+
+    /**
+     * Reads parameters from the query string and a form-encoded body of at most MAX_BODY_BYTES
+     */
+    private static Map<String, String> parseParams(HttpExchange exchange) throws IOException, HttpException {
+        Map<String, String> params = new HashMap<>();
+        parseInto(exchange.getRequestURI().getRawQuery(), params);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (body.size() + read > MAX_BODY_BYTES) {
+                    throw new HttpException(413, "Request body is larger than " + MAX_BODY_BYTES + " bytes");
+                }
+                body.write(buffer, 0, read);
+            }
+        }
+        if (body.size() > 0) {
+            parseInto(new String(body.toByteArray(), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parseInto(String encoded, Map<String, String> params) throws UnsupportedEncodingException {
+        if (encoded == null || encoded.isEmpty()) {
+            return;
+        }
+        for (String pair : encoded.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * In-memory question bank for load testing the server without a database
+     */
+    static QuizEngine.QuestionSource demoSource(int bankSize) {
+        List<Question> bank = new ArrayList<>(bankSize);
+        for (int id = 1; id <= bankSize; id++) {
+            int a = id % 50;
+            int b = id % 7 + 1;
+            String[] options = {
+                String.valueOf(a + b - 1), String.valueOf(a + b), String.valueOf(a + b + 1), String.valueOf(a * b + 2)
+            };
+            bank.add(new Question(id, "What is " + a + " + " + b + "?", options, String.valueOf(a + b)));
+        }
+        return spec -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            List<Question> quiz = new ArrayList<>(spec.getCount());
+            for (int i = 0; i < spec.getCount(); i++) {
+                quiz.add(bank.get(random.nextInt(bank.size())));
+            }
+            return quiz;
+        };
+    }
+
+    /**
+     * Runs the server: QuizServer [port] [--demo]
+     */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        boolean demo = false;
+        for (String arg : args) {
+            if ("--demo".equals(arg)) {
+                demo = true;
+            } else {
+                port = Integer.parseInt(arg);
+            }
+        }
+
+        QuizEngine.QuestionSource source = demo ? demoSource(DEMO_BANK_SIZE) : DatabaseConnector::assembleQuiz;
+        QuizEngine.Config config = new QuizEngine.Config();
+        config.persistQuestionStats = !demo;
+        config.persistReviewState = !demo;
+        if (!demo) {
+            DatabaseConnector.enableOfflineStore();
+        }
+        QuizServer quizServer = new QuizServer(port, source, config);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            quizServer.stop();
+            DatabaseConnector.closeConnection();
+        }));
+        quizServer.start();
+        if (demo) {
+            LOGGER.info("Serving the in-memory demo question bank");
+        }
+    }
+}
@@ -0,0 +1,351 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * State of one player's quiz: the shuffled attempts, current question,
+ * score, hints and question timer.
+ *
+ * A session either plays a fixed question list or asks a QuestionSelector
+ * for each next question as the previous one closes (adaptive quizzes).
+ * All mutating methods are synchronized on the session, so a session may be
+ * driven from a UI thread, request threads and the engine's timer thread.
+ */
+public class QuizSession {
+    private final String id;
+    private final QuizEngine engine;
+    private final List<QuestionAttempt> attempts;
+    private final List<QuestionAttempt> attemptsView;
+    private final QuestionSelector selector;
+    private final List<QuizListener> listeners = new CopyOnWriteArrayList<>();
+    private final long timePerQuestionMs;
+    private volatile int questionCount;
+
+    private int currentIndex = 0;
+    private int score = 0;
+    private int hintsRemaining;
+    private boolean timed;
+    private boolean finished = false;
+    private boolean resultRecorded = false;
+    private long questionStartedNanos = 0; // Start of the current countdown
+    private long questionShownNanos = 0;   // Start of the current question, for time-to-answer
+    private ScheduledFuture<?> timeout;
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    /**
+     * Chooses the questions of an adaptive quiz one at a time
+     */
+    public interface QuestionSelector {
+        /**
+         * Returns the question to ask after previous (null for the first one), or null when none are left
+         */
+        Question next(QuestionAttempt previous);
+    }
+
+    QuizSession(String id, QuizEngine engine, List<QuestionAttempt> attempts, boolean timed, int hints) {
+        this(id, engine, new ArrayList<>(attempts), null, attempts.size(), timed, hints);
+    }
+
+    QuizSession(String id, QuizEngine engine, QuestionSelector selector, int questionCount, boolean timed, int hints) {
+        this(id, engine, new ArrayList<QuestionAttempt>(questionCount), selector, questionCount, timed, hints);
+        pickNext(null);
+    }
+
+    private QuizSession(String id, QuizEngine engine, List<QuestionAttempt> attempts, QuestionSelector selector,
+                        int questionCount, boolean timed, int hints) {
+        this.id = id;
+        this.engine = engine;
+        this.attempts = attempts;
+        this.attemptsView = Collections.unmodifiableList(attempts);
+        this.selector = selector;
+        this.questionCount = questionCount;
+        this.timed = timed;
+        this.hintsRemaining = hints;
+        this.timePerQuestionMs = engine.getConfig().timePerQuestionMs;
+    }
+
+    /**
+     * Result of answering the current question
+     */
+    public static class AnswerResult {
+        public final QuestionAttempt attempt;
+        public final boolean correct;
+        public final int score;
+        public final boolean finished;
+
+        AnswerResult(QuestionAttempt attempt, boolean correct, int score, boolean finished) {
+            this.attempt = attempt;
+            this.correct = correct;
+            this.score = score;
+            this.finished = finished;
+        }
+    }
+
+    public void addListener(QuizListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(QuizListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts the clock on the current question
+     */
+    public synchronized void beginQuestion() {
+        if (finished || currentIndex >= attempts.size()) {
+            return;
+        }
+        touch();
+        questionStartedNanos = System.nanoTime();
+        questionShownNanos = questionStartedNanos;
+        scheduleTimeout();
+        for (QuizListener listener : listeners) {
+            listener.onQuestionStarted(this, currentIndex);
+        }
+    }
+
+    /**
+     * Answers the current question with the option in the given display slot.
+     * Returns null when there is no open question, e.g. it already timed out.
+     */
+    public synchronized AnswerResult answer(int displayIndex) {
+        if (finished || currentIndex >= attempts.size()) {
+            return null;
+        }
+        touch();
+        cancelTimeout();
+
+        QuestionAttempt attempt = attempts.get(currentIndex);
+        attempt.select(displayIndex);
+        recordTimeToAnswer(attempt);
+        boolean correct = attempt.isCorrect();
+        if (correct) {
+            score++;
+        }
+        currentIndex++;
+        pickNext(attempt);
+
+        for (QuizListener listener : listeners) {
+            listener.onAnswered(this, attempt, correct);
+        }
+        if (currentIndex >= attempts.size()) {
+            finish();
+        }
+        return new AnswerResult(attempt, correct, score, finished);
+    }
+
+    /**
+     * Closes the given question as timed out if it is still the open one
+     */
+    synchronized void timeOut(int questionIndex) {
+        if (finished || questionIndex != currentIndex) {
+            return; // Answered in the meantime
+        }
+        touch();
+
+        QuestionAttempt attempt = attempts.get(currentIndex);
+        attempt.markUnanswered(QuestionAttempt.AnswerState.TIMED_OUT);
+        recordTimeToAnswer(attempt);
+        currentIndex++;
+        pickNext(attempt);
+
+        for (QuizListener listener : listeners) {
+            listener.onTimeUp(this, attempt);
+        }
+        if (currentIndex >= attempts.size()) {
+            finish();
+        }
+    }
+
+    /**
+     * Ends the quiz, marking all remaining questions as skipped
+     */
+    public synchronized void submit() {
+        if (finished) {
+            return;
+        }
+        touch();
+        cancelTimeout();
+        for (int i = currentIndex; i < attempts.size(); i++) {
+            attempts.get(i).markUnanswered(QuestionAttempt.AnswerState.SKIPPED);
+        }
+        currentIndex = attempts.size();
+        if (selector != null) {
+            questionCount = attempts.size(); // Questions never picked are not part of the quiz
+        }
+        finish();
+    }
+
+    /**
+     * Lets the selector append the next question of an adaptive quiz
+     */
+    private void pickNext(QuestionAttempt previous) {
+        if (selector == null || attempts.size() >= questionCount) {
+            return;
+        }
+        Question next = selector.next(previous);
+        if (next == null) {
+            questionCount = attempts.size(); // The pool ran out early
+            return;
+        }
+        attempts.add(QuestionAttempt.shuffled(next, ThreadLocalRandom.current()));
+    }
+
+    private void recordTimeToAnswer(QuestionAttempt attempt) {
+        if (questionShownNanos != 0) {
+            attempt.setTimeToAnswerMillis((System.nanoTime() - questionShownNanos) / 1_000_000);
+            questionShownNanos = 0;
+        }
+    }
+
+    private void finish() {
+        finished = true;
+        cancelTimeout();
+        for (QuizListener listener : listeners) {
+            listener.onFinished(this);
+        }
+    }
+
+    /**
+     * Uses a hint on the current question: returns the display slot of a wrong
+     * option that can be ruled out, or -1 if no hint is available
+     */
+    public synchronized int useHint() {
+        if (finished || hintsRemaining <= 0 || currentIndex >= attempts.size()) {
+            return -1;
+        }
+        QuestionAttempt attempt = attempts.get(currentIndex);
+        int[] wrong = new int[attempt.getOptionCount()];
+        int wrongCount = 0;
+        for (int i = 0; i < attempt.getOptionCount(); i++) {
+            if (!attempt.isCorrectOption(i)) {
+                wrong[wrongCount++] = i;
+            }
+        }
+        if (wrongCount == 0) {
+            return -1;
+        }
+        touch();
+        hintsRemaining--;
+        return wrong[ThreadLocalRandom.current().nextInt(wrongCount)];
+    }
+
+    /**
+     * Switches between timed and practice play for the current and later questions
+     */
+    public synchronized void setTimed(boolean timed) {
+        this.timed = timed;
+        if (timed) {
+            questionStartedNanos = System.nanoTime();
+            scheduleTimeout();
+        } else {
+            cancelTimeout();
+        }
+    }
+
+    private void scheduleTimeout() {
+        cancelTimeout();
+        if (timed && !finished) {
+            int questionIndex = currentIndex;
+            timeout = engine.schedule(() -> timeOut(questionIndex), timePerQuestionMs);
+        }
+    }
+
+    synchronized void cancelTimeout() {
+        if (timeout != null) {
+            timeout.cancel(false);
+            timeout = null;
+        }
+    }
+
+    private void touch() {
+        lastActivity = System.currentTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public synchronized QuestionAttempt getCurrentQuestion() {
+        return currentIndex < attempts.size() ? attempts.get(currentIndex) : null;
+    }
+
+    public synchronized int getCurrentIndex() {
+        return currentIndex;
+    }
+
+    public int getQuestionCount() {
+        return questionCount;
+    }
+
+    public boolean isAdaptive() {
+        return selector != null;
+    }
+
+    /**
+     * Returns all attempts in quiz order; read them once the session is finished
+     */
+    public List<QuestionAttempt> getAttempts() {
+        return attemptsView;
+    }
+
+    public synchronized int getScore() {
+        return score;
+    }
+
+    public synchronized int getAnsweredCount() {
+        int answered = 0;
+        for (int i = 0; i < currentIndex; i++) {
+            if (attempts.get(i).isAnswered()) {
+                answered++;
+            }
+        }
+        return answered;
+    }
+
+    public synchronized int getHintsRemaining() {
+        return hintsRemaining;
+    }
+
+    public synchronized boolean isTimed() {
+        return timed;
+    }
+
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Claims the storing of the quiz's result; true only for the first caller, so it is stored once
+     */
+    public synchronized boolean markResultRecorded() {
+        if (resultRecorded) {
+            return false;
+        }
+        resultRecorded = true;
+        return true;
+    }
+
+    /**
+     * Milliseconds left on the current question, or -1 when untimed
+     */
+    public synchronized long getRemainingMillis() {
+        if (!timed || finished) {
+            return -1;
+        }
+        long elapsedMs = (System.nanoTime() - questionStartedNanos) / 1_000_000;
+        return Math.max(0, timePerQuestionMs - elapsedMs);
+    }
+
+    public long getTimePerQuestionMillis() {
+        return timePerQuestionMs;
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+}
@@ -0,0 +1,85 @@
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Describes the questions a quiz needs: how many, from which categories,
+ * in which difficulty range and which question ids must not be repeated.
+ *
+ * Category and difficulty filtering use the {@code category} and
+ * {@code difficulty} columns of the questions table.
+ */
+public class QuizSpec {
+    private final int count;
+    private final Set<String> categories;
+    private final Set<Integer> excludedIds;
+    private final int minDifficulty;
+    private final int maxDifficulty;
+
+    public QuizSpec(int count) {
+        this(count, null, null);
+    }
+
+    public QuizSpec(int count, Collection<String> categories, Collection<Integer> excludedIds) {
+        this(count, categories, excludedIds, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param minDifficulty lowest difficulty to include (inclusive)
+     * @param maxDifficulty highest difficulty to include (inclusive)
+     */
+    public QuizSpec(int count, Collection<String> categories, Collection<Integer> excludedIds,
+                    int minDifficulty, int maxDifficulty) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Question count must be positive, got: " + count);
+        }
+        if (minDifficulty > maxDifficulty) {
+            throw new IllegalArgumentException("Empty difficulty range: " + minDifficulty + ".." + maxDifficulty);
+        }
+        this.count = count;
+        this.minDifficulty = minDifficulty;
+        this.maxDifficulty = maxDifficulty;
+        this.categories = categories == null
+            ? Collections.<String>emptySet()
+            : Collections.unmodifiableSet(new LinkedHashSet<>(categories));
+        this.excludedIds = excludedIds == null
+            ? Collections.<Integer>emptySet()
+            : Collections.unmodifiableSet(new LinkedHashSet<>(excludedIds));
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public Set<String> getCategories() {
+        return categories;
+    }
+
+    public Set<Integer> getExcludedIds() {
+        return excludedIds;
+    }
+
+    public int getMinDifficulty() {
+        return minDifficulty;
+    }
+
+    public int getMaxDifficulty() {
+        return maxDifficulty;
+    }
+
+    public boolean hasDifficultyFilter() {
+        return minDifficulty != Integer.MIN_VALUE || maxDifficulty != Integer.MAX_VALUE;
+    }
+
+    public boolean hasFilters() {
+        return !categories.isEmpty() || !excludedIds.isEmpty() || hasDifficultyFilter();
+    }
+
+    @Override
+    public String toString() {
+        String difficulty = hasDifficultyFilter() ? ", difficulty=" + minDifficulty + ".." + maxDifficulty : "";
+        return String.format("QuizSpec{count=%d, categories=%s%s, excluded=%d}",
+            count, categories, difficulty, excludedIds.size());
+    }
+}
@@ -0,0 +1,510 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Spaced-repetition scheduling (SM-2) of each player's questions.
+ *
+ * Every question a player has answered gets a review state: repetition
+ * count, easiness factor, interval and the time it is due again. A correct
+ * answer pushes the next review further out, a wrong one brings it back to
+ * tomorrow. A player's states live in a priority queue ordered by due time,
+ * so building a quiz pops the k most overdue questions in O(k log n) however
+ * long the history is; the rest of the quiz is filled with questions the
+ * player has never seen, then with the ones due soonest.
+ *
+ * Review quizzes draw due questions from every category; the spec's
+ * categories and difficulty range only steer which new questions are
+ * introduced.
+ *
+ * When persistent, a player's states are read from the {@code review_state}
+ * table the first time they need a quiz, and changed states are written
+ * back in batches every FLUSH_INTERVAL_MS.
+ */
+public class ReviewScheduler {
+    private static final Logger LOGGER = Logger.getLogger(ReviewScheduler.class.getName());
+
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+    private static final double START_EASINESS = 2.5;
+    private static final double MIN_EASINESS = 1.3;
+    private static final int NEW_QUESTION_OVERSAMPLE = 2; // Fetched per missing question, as some are already known
+    private static final long FLUSH_INTERVAL_MS = 30_000;
+    private static final long DECK_IDLE_MS = 30 * 60_000;  // Saved decks unused this long are dropped from memory
+
+    /**
+     * Review state of one question for one user, as read from or written to the review_state table
+     */
+    public static final class StoredState {
+        public final String user;
+        public final int questionId;
+        public final int repetitions;
+        public final int intervalDays;
+        public final double easiness;
+        public final int lapses;
+        public final long dueAt;
+
+        public StoredState(String user, int questionId, int repetitions, int intervalDays,
+                           double easiness, int lapses, long dueAt) {
+            this.user = user;
+            this.questionId = questionId;
+            this.repetitions = repetitions;
+            this.intervalDays = intervalDays;
+            this.easiness = easiness;
+            this.lapses = lapses;
+            this.dueAt = dueAt;
+        }
+    }
+
+    /**
+     * One question in a deck; guarded by the deck's lock
+     */
+    static final class ReviewState {
+        final int questionId;
+        int repetitions = 0;
+        int intervalDays = 0;
+        double easiness = START_EASINESS;
+        int lapses = 0;
+        long dueAt;
+        int version = 0;         // Bumped on every reschedule; older queue entries are stale
+        boolean queued = false;  // Has a queue entry, live or stale
+        boolean dirty = false;
+        Question question;       // Null until the question is answered or fetched in this process
+
+        ReviewState(int questionId) {
+            this.questionId = questionId;
+        }
+
+        /**
+         * SM-2: quality 0-5, where 3 and above counts as recalled
+         */
+        void review(int quality, long now) {
+            if (quality >= 3) {
+                if (repetitions == 0) {
+                    intervalDays = 1;
+                } else if (repetitions == 1) {
+                    intervalDays = 6;
+                } else {
+                    intervalDays = (int) Math.round(intervalDays * easiness);
+                }
+                repetitions++;
+            } else {
+                repetitions = 0;
+                intervalDays = 1;
+                lapses++;
+            }
+            int miss = 5 - quality;
+            easiness = Math.max(MIN_EASINESS, easiness + 0.1 - miss * (0.08 + miss * 0.02));
+            dueAt = now + intervalDays * DAY_MS;
+            version++;
+        }
+
+        StoredState toStored(String user) {
+            return new StoredState(user, questionId, repetitions, intervalDays, easiness, lapses, dueAt);
+        }
+    }
+
+    /**
+     * A queue entry; valid while its version matches the state's
+     */
+    private static final class Due implements Comparable<Due> {
+        final long dueAt;
+        final int version;
+        final ReviewState state;
+
+        Due(ReviewState state) {
+            this.dueAt = state.dueAt;
+            this.version = state.version;
+            this.state = state;
+        }
+
+        boolean isStale() {
+            return version != state.version;
+        }
+
+        @Override
+        public int compareTo(Due other) {
+            int byDue = Long.compare(dueAt, other.dueAt);
+            return byDue != 0 ? byDue : Integer.compare(state.questionId, other.state.questionId);
+        }
+    }
+
+    /**
+     * All review states of one user
+     */
+    private static final class Deck {
+        final String user;
+        final Map<Integer, ReviewState> states = new HashMap<>();
+        PriorityQueue<Due> queue = new PriorityQueue<>();
+        int staleEntries = 0;
+        final List<ReviewState> dirty = new ArrayList<>();
+        boolean loaded = false;
+        volatile long lastUsed = System.currentTimeMillis();
+
+        Deck(String user) {
+            this.user = user;
+        }
+
+        void reschedule(ReviewState state, int quality, long now) {
+            if (state.queued) {
+                staleEntries++; // The state's previous entry stays in the queue until popped
+            }
+            state.review(quality, now);
+            queue.add(new Due(state));
+            state.queued = true;
+            if (!state.dirty) {
+                state.dirty = true;
+                dirty.add(state);
+            }
+            if (staleEntries > states.size()) {
+                compact();
+            }
+        }
+
+        /**
+         * Rebuilds the queue from the live states in O(n); amortized over the reschedules that made it stale
+         */
+        void compact() {
+            List<Due> live = new ArrayList<>(states.size());
+            for (ReviewState state : states.values()) {
+                live.add(new Due(state));
+                state.queued = true;
+            }
+            queue = new PriorityQueue<>(live);
+            staleEntries = 0;
+        }
+
+        /**
+         * Up to limit states in due order, skipping excluded ids; the queue is left unchanged
+         */
+        List<ReviewState> earliest(int limit, Set<Integer> excluded) {
+            List<Due> popped = new ArrayList<>(limit);
+            List<ReviewState> earliest = new ArrayList<>(limit);
+            while (earliest.size() < limit && !queue.isEmpty()) {
+                Due due = queue.poll();
+                if (due.isStale()) {
+                    staleEntries--;
+                    continue;
+                }
+                popped.add(due);
+                if (!excluded.contains(due.state.questionId)) {
+                    earliest.add(due.state);
+                }
+            }
+            queue.addAll(popped); // Still due until answered
+            return earliest;
+        }
+    }
+
+    private final QuizEngine.QuestionSource newQuestions;
+    private final long timeLimitMs;
+    private final boolean persistent;
+    private final ConcurrentMap<String, Deck> decks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * @param newQuestions source of questions the player has not seen yet
+     * @param timeLimitMs  time allowed per question, the scale for grading answer times
+     * @param persistent   read and write the review_state table through DatabaseConnector
+     */
+    public ReviewScheduler(QuizEngine.QuestionSource newQuestions, long timeLimitMs, boolean persistent) {
+        this.newQuestions = newQuestions;
+        this.timeLimitMs = timeLimitMs;
+        this.persistent = persistent;
+        if (persistent) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "review-state-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Picks spec.getCount() questions for the user: overdue reviews first, then
+     * new questions, then the reviews due soonest. Blocks on the database the
+     * first time a user is seen, so call it where questions are fetched.
+     */
+    public List<Question> buildQuiz(String user, QuizSpec spec) throws SQLException {
+        int count = spec.getCount();
+        Deck deck = loadedDeck(user);
+        long now = System.currentTimeMillis();
+
+        List<ReviewState> due = new ArrayList<>();
+        List<ReviewState> ahead = new ArrayList<>();
+        synchronized (deck) {
+            for (ReviewState state : deck.earliest(count, spec.getExcludedIds())) {
+                (state.dueAt <= now ? due : ahead).add(state);
+            }
+        }
+
+        List<Question> quiz = new ArrayList<>(count);
+        Set<Integer> chosen = new HashSet<>();
+        addResolved(deck, due, quiz, chosen, count);
+
+        if (quiz.size() < count) {
+            int missing = count - quiz.size();
+            QuizSpec freshSpec = new QuizSpec(missing * NEW_QUESTION_OVERSAMPLE, spec.getCategories(),
+                spec.getExcludedIds(), spec.getMinDifficulty(), spec.getMaxDifficulty());
+            try {
+                for (Question question : newQuestions.fetch(freshSpec)) {
+                    if (quiz.size() == count) {
+                        break;
+                    }
+                    boolean known;
+                    synchronized (deck) {
+                        known = deck.states.containsKey(question.getId());
+                    }
+                    if (!known && chosen.add(question.getId())) {
+                        quiz.add(question);
+                    }
+                }
+            } catch (SQLException e) {
+                if (quiz.isEmpty() && ahead.isEmpty()) {
+                    throw e;
+                }
+                LOGGER.warning("No new questions for " + user + ", reviewing early: " + e.getMessage());
+            }
+        }
+
+        if (quiz.size() < count) {
+            addResolved(deck, ahead, quiz, chosen, count);
+        }
+        deck.lastUsed = System.currentTimeMillis();
+        Collections.shuffle(quiz);
+        return quiz;
+    }
+
+    /**
+     * Reschedules a question after the user answered it; quality is 0-5 as in SM-2
+     */
+    public void record(String user, Question question, int quality) {
+        Deck deck = decks.computeIfAbsent(user, Deck::new);
+        long now = System.currentTimeMillis();
+        synchronized (deck) {
+            ReviewState state = deck.states.get(question.getId());
+            if (state == null) {
+                state = new ReviewState(question.getId());
+                deck.states.put(question.getId(), state);
+            }
+            state.question = question;
+            deck.reschedule(state, quality, now);
+        }
+        deck.lastUsed = now;
+    }
+
+    /**
+     * SM-2 quality of an answer: 5 for a quick correct answer down to 3 for a
+     * slow one, 1 for a wrong answer and 0 for no answer
+     */
+    public int grade(QuestionAttempt attempt, boolean correct) {
+        if (!correct) {
+            return attempt.isAnswered() ? 1 : 0;
+        }
+        long taken = attempt.getTimeToAnswerMillis();
+        if (taken < 0 || timeLimitMs <= 0) {
+            return 4;
+        }
+        if (taken <= timeLimitMs / 3) {
+            return 5;
+        }
+        return taken <= 2 * timeLimitMs / 3 ? 4 : 3;
+    }
+
+    /**
+     * A session listener that reschedules every question the user answers
+     */
+    public QuizListener recorderFor(String user) {
+        return new QuizListener() {
+            @Override
+            public void onAnswered(QuizSession session, QuestionAttempt attempt, boolean correct) {
+                record(user, attempt.getQuestion(), grade(attempt, correct));
+            }
+
+            @Override
+            public void onTimeUp(QuizSession session, QuestionAttempt attempt) {
+                record(user, attempt.getQuestion(), grade(attempt, false));
+            }
+        };
+    }
+
+    /**
+     * Number of questions the user has a schedule for, or -1 when the user is not in memory
+     */
+    public int getScheduledCount(String user) {
+        Deck deck = decks.get(user);
+        if (deck == null) {
+            return -1;
+        }
+        synchronized (deck) {
+            return deck.states.size();
+        }
+    }
+
+    public int getDeckCount() {
+        return decks.size();
+    }
+
+    /**
+     * Writes changed states to the review_state table and drops saved decks that went idle
+     */
+    public void flush() {
+        if (!persistent) {
+            return;
+        }
+        List<StoredState> rows = new ArrayList<>();
+        Map<Deck, List<ReviewState>> flushed = new HashMap<>();
+        for (Deck deck : decks.values()) {
+            synchronized (deck) {
+                if (deck.dirty.isEmpty()) {
+                    continue;
+                }
+                List<ReviewState> states = new ArrayList<>(deck.dirty);
+                for (ReviewState state : states) {
+                    state.dirty = false;
+                    rows.add(state.toStored(deck.user));
+                }
+                deck.dirty.clear();
+                flushed.put(deck, states);
+            }
+        }
+
+        if (!rows.isEmpty()) {
+            try {
+                DatabaseConnector.saveReviewStates(rows);
+            } catch (SQLException e) {
+                for (Map.Entry<Deck, List<ReviewState>> entry : flushed.entrySet()) {
+                    Deck deck = entry.getKey();
+                    synchronized (deck) {
+                        for (ReviewState state : entry.getValue()) {
+                            if (!state.dirty) {
+                                state.dirty = true;
+                                deck.dirty.add(state);
+                            }
+                        }
+                    }
+                }
+                LOGGER.warning("Could not save " + rows.size() + " review states: " + e.getMessage());
+                return;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        for (Iterator<Deck> it = decks.values().iterator(); it.hasNext(); ) {
+            Deck deck = it.next();
+            synchronized (deck) {
+                if (deck.dirty.isEmpty() && now - deck.lastUsed > DECK_IDLE_MS) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flush();
+        }
+    }
+
+    /**
+     * The user's deck, reading the stored states the first time. States
+     * recorded before the read completes are newer and win over stored ones.
+     */
+    private Deck loadedDeck(String user) throws SQLException {
+        Deck deck = decks.computeIfAbsent(user, Deck::new);
+        synchronized (deck) {
+            if (deck.loaded) {
+                return deck;
+            }
+        }
+
+        List<StoredState> stored = persistent
+            ? DatabaseConnector.loadReviewStates(user)
+            : Collections.<StoredState>emptyList();
+
+        synchronized (deck) {
+            if (!deck.loaded) {
+                for (StoredState row : stored) {
+                    if (!deck.states.containsKey(row.questionId)) {
+                        ReviewState state = new ReviewState(row.questionId);
+                        state.repetitions = row.repetitions;
+                        state.intervalDays = row.intervalDays;
+                        state.easiness = row.easiness;
+                        state.lapses = row.lapses;
+                        state.dueAt = row.dueAt;
+                        deck.states.put(row.questionId, state);
+                    }
+                }
+                deck.compact(); // Heapify in O(n)
+                deck.loaded = true;
+            }
+        }
+        return deck;
+    }
+
+    /**
+     * Appends the states' questions, fetching those not in memory in one query
+     */
+    private void addResolved(Deck deck, List<ReviewState> states, List<Question> quiz, Set<Integer> chosen, int count)
+            throws SQLException {
+        if (states.isEmpty()) {
+            return;
+        }
+        List<Integer> unresolved = new ArrayList<>();
+        synchronized (deck) {
+            for (ReviewState state : states) {
+                if (state.question == null) {
+                    unresolved.add(state.questionId);
+                }
+            }
+        }
+
+        if (!unresolved.isEmpty() && persistent) {
+            Map<Integer, Question> fetched = new HashMap<>();
+            for (Question question : DatabaseConnector.getQuestionsById(unresolved)) {
+                fetched.put(question.getId(), question);
+            }
+            synchronized (deck) {
+                for (int questionId : unresolved) {
+                    ReviewState state = deck.states.get(questionId);
+                    Question question = fetched.get(questionId);
+                    if (question != null) {
+                        state.question = question;
+                    } else if (state != null) {
+                        // Deleted from the bank; forget it so it does not block the head of the queue
+                        deck.states.remove(questionId);
+                        state.version++;
+                        deck.staleEntries++;
+                    }
+                }
+            }
+        }
+
+        synchronized (deck) {
+            for (ReviewState state : states) {
+                if (quiz.size() == count) {
+                    break;
+                }
+                if (state.question != null && chosen.add(state.questionId)) {
+                    quiz.add(state.question);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+import java.sql.*;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Compares ORDER BY RAND() against indexed sampling on synthetic tables.
+ *
+ * Uses the connection settings from DatabaseConnector and creates a scratch
+ * table named {@code questions_bench}, which is dropped afterwards.
+ *
+ * Usage: java -cp ".:mysql-connector-j-*.jar" SamplingBenchmark [sizes...]
+ */
+public class SamplingBenchmark {
+    private static final String TABLE = "questions_bench";
+    private static final int[] DEFAULT_SIZES = {1_000, 100_000, 1_000_000};
+    private static final int SAMPLE_SIZE = 10;
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 30;
+    private static final int INSERT_BATCH_SIZE = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        }
+
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            System.out.println("=== Question Sampling Benchmark ===");
+            System.out.printf("%-10s %-14s %10s %10s %10s%n", "rows", "strategy", "avg(ms)", "p50(ms)", "p95(ms)");
+
+            try {
+                for (int size : sizes) {
+                    populate(conn, size);
+                    QuestionSampler sampler = new QuestionSampler(TABLE);
+
+                    for (QuestionSampler.Mode mode : QuestionSampler.Mode.values()) {
+                        double[] timings = run(conn, sampler, mode);
+                        System.out.printf("%-10d %-14s %10.2f %10.2f %10.2f%n", size, mode,
+                            Arrays.stream(timings).average().orElse(0),
+                            percentile(timings, 50), percentile(timings, 95));
+                    }
+                }
+            } finally {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate("DROP TABLE IF EXISTS " + TABLE);
+                }
+            }
+        }
+    }
+
+    private static double[] run(Connection conn, QuestionSampler sampler, QuestionSampler.Mode mode)
+            throws SQLException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            sampler.sample(conn, SAMPLE_SIZE, mode);
+        }
+
+        double[] timings = new double[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            sampler.sample(conn, SAMPLE_SIZE, mode);
+            timings[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        return timings;
+    }
+
+    /**
+     * Recreates the scratch table with the given number of rows
+     */
+    private static void populate(Connection conn, int size) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DROP TABLE IF EXISTS " + TABLE);
+            stmt.executeUpdate("CREATE TABLE " + TABLE + " LIKE questions");
+        }
+
+        String insert = "INSERT INTO " + TABLE +
+            " (question, option1, option2, option3, option4, correct_answer) VALUES (?, ?, ?, ?, ?, ?)";
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement stmt = conn.prepareStatement(insert)) {
+            for (int i = 1; i <= size; i++) {
+                stmt.setString(1, "Synthetic question #" + i + "?");
+                stmt.setString(2, "A" + i);
+                stmt.setString(3, "B" + i);
+                stmt.setString(4, "C" + i);
+                stmt.setString(5, "D" + i);
+                stmt.setString(6, "C" + i);
+                stmt.addBatch();
+                if (i % INSERT_BATCH_SIZE == 0) {
+                    stmt.executeBatch();
+                    conn.commit();
+                }
+            }
+            stmt.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static double percentile(double[] values, int percentile) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,180 @@
+import java.awt.Toolkit;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Plays short sound effects without ever blocking the caller.
+ *
+ * Every effect is synthesized to 16-bit PCM once, when the engine starts,
+ * and played on a dedicated thread through a single SourceDataLine that
+ * stays open. Requests only publish the effect to play next: an effect
+ * requested while another is playing cuts it short, requests made in quick
+ * succession collapse into the latest one, and repeating the effect that is
+ * already playing is ignored. Without an audio device the engine falls back
+ * to a single system beep per effect.
+ */
+public class SoundEngine {
+    private static final Logger LOGGER = Logger.getLogger(SoundEngine.class.getName());
+
+    private static final float SAMPLE_RATE = 22_050f;
+    private static final int CHUNK_MS = 10;      // Granularity at which playback can be interrupted
+    private static final int LINE_BUFFER_MS = 50; // Keeps latency low for a new effect
+    private static final int FADE_MS = 5;        // Avoids clicks at tone edges
+    private static final double VOLUME = 0.3;
+
+    /**
+     * Sound effects, each a sequence of tones given as {frequency Hz, duration ms} pairs;
+     * a frequency of 0 is silence
+     */
+    public enum Effect {
+        CORRECT(880, 150),
+        INCORRECT(330, 150, 0, 60, 262, 200),
+        SUBMIT(523, 100, 0, 30, 659, 100, 0, 30, 784, 160),
+        TIMEUP(784, 90, 0, 20, 659, 90, 0, 20, 523, 90, 0, 20, 392, 160),
+        CLICK(1200, 25);
+
+        private final int[] tones;
+
+        Effect(int... tones) {
+            this.tones = tones;
+        }
+    }
+
+    private final AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+    private final Map<Effect, byte[]> clips = new EnumMap<>(Effect.class);
+    private final AtomicReference<Effect> pending = new AtomicReference<>();
+    private final Thread thread;
+    private volatile boolean enabled = true;
+    private volatile boolean running = true;
+    private SourceDataLine line;      // Only touched by the sound thread
+    private boolean audioUnavailable = false;
+
+    public SoundEngine() {
+        thread = new Thread(this::run, "sound-engine");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Requests an effect; returns immediately
+     */
+    public void play(Effect effect) {
+        if (!enabled || !running) {
+            return;
+        }
+        pending.set(effect);
+        LockSupport.unpark(thread);
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            pending.set(null);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        for (Effect effect : Effect.values()) {
+            clips.put(effect, synthesize(effect));
+        }
+
+        while (running) {
+            Effect effect = pending.getAndSet(null);
+            if (effect == null) {
+                LockSupport.park(this);
+            } else {
+                write(effect);
+            }
+        }
+
+        if (line != null) {
+            line.close();
+        }
+    }
+
+    /**
+     * Writes an effect to the line in small chunks, stopping early when a different effect is requested
+     */
+    private void write(Effect effect) {
+        if (!openLine()) {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+
+        byte[] pcm = clips.get(effect);
+        int chunk = bytesFor(CHUNK_MS);
+        for (int offset = 0; offset < pcm.length && running; offset += chunk) {
+            Effect next = pending.get();
+            if (next == effect) {
+                pending.compareAndSet(effect, null); // Repeat of the effect already playing
+            } else if (next != null) {
+                line.flush(); // Cut this effect short for the newer one
+                return;
+            }
+            line.write(pcm, offset, Math.min(chunk, pcm.length - offset));
+        }
+    }
+
+    private boolean openLine() {
+        if (line != null) {
+            return true;
+        }
+        if (audioUnavailable) {
+            return false;
+        }
+        try {
+            line = AudioSystem.getSourceDataLine(format);
+            line.open(format, bytesFor(LINE_BUFFER_MS));
+            line.start();
+            return true;
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            audioUnavailable = true;
+            line = null;
+            LOGGER.warning("No audio line available, falling back to system beep: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private byte[] synthesize(Effect effect) {
+        int totalMs = 0;
+        for (int i = 1; i < effect.tones.length; i += 2) {
+            totalMs += effect.tones[i];
+        }
+
+        byte[] pcm = new byte[bytesFor(totalMs)];
+        int offset = 0;
+        for (int i = 0; i < effect.tones.length; i += 2) {
+            int frequency = effect.tones[i];
+            int samples = bytesFor(effect.tones[i + 1]) / 2;
+            int fade = Math.min(samples / 2, (int) (SAMPLE_RATE * FADE_MS / 1000));
+            for (int n = 0; n < samples; n++) {
+                double envelope = Math.min(1.0, Math.min(n, samples - 1 - n) / (double) Math.max(1, fade));
+                double value = frequency == 0 ? 0 : Math.sin(2 * Math.PI * frequency * n / SAMPLE_RATE);
+                short sample = (short) (value * envelope * VOLUME * Short.MAX_VALUE);
+                pcm[offset++] = (byte) sample;
+                pcm[offset++] = (byte) (sample >> 8);
+            }
+        }
+        return pcm;
+    }
+
+    private int bytesFor(int millis) {
+        return (int) (SAMPLE_RATE * millis / 1000) * 2;
+    }
+}
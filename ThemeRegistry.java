@@ -0,0 +1,183 @@
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.event.ContainerEvent;
+import java.awt.event.ContainerListener;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.CellRendererPane;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JRadioButton;
+
+/**
+ * Keeps track of the themed components so that a theme switch only touches
+ * those, instead of walking the whole component tree.
+ *
+ * Components are registered once, when they are added under a tracked
+ * container, and forgotten again when they are removed. Applying a palette
+ * is a loop over the registered entries that allocates nothing; the color
+ * changes are coalesced by Swing into a single repaint. All methods must be
+ * called on the EDT.
+ */
+public class ThemeRegistry {
+    private static final String ENTRY_KEY = "ThemeRegistry.entry";
+    private static final String EXCLUDED_KEY = "ThemeRegistry.excluded";
+    private static final String TRACKED_KEY = "ThemeRegistry.tracked";
+
+    /**
+     * The colors of one theme
+     */
+    public static final class Palette {
+        public final Color background;
+        public final Color surface;
+        public final Color card;
+        public final Color text;
+
+        public Palette(Color background, Color surface, Color card, Color text) {
+            this.background = background;
+            this.surface = surface;
+            this.card = card;
+            this.text = text;
+        }
+    }
+
+    private enum Role { LABEL, BUTTON, RADIO, PANEL }
+
+    private static final class Entry {
+        final JComponent component;
+        final Role role;
+        int index;
+
+        Entry(JComponent component, Role role) {
+            this.component = component;
+            this.role = role;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final ContainerListener follower = new ContainerListener() {
+        @Override
+        public void componentAdded(ContainerEvent e) {
+            track(e.getChild());
+        }
+
+        @Override
+        public void componentRemoved(ContainerEvent e) {
+            untrack(e.getChild());
+        }
+    };
+
+    /**
+     * Registers the component and everything below it, and follows components added or removed later
+     */
+    public void track(Component component) {
+        if (!(component instanceof JComponent) || component instanceof CellRendererPane) {
+            return; // Renderers are stamped by their list and keep their own colors
+        }
+        JComponent jc = (JComponent) component;
+        if (jc.getClientProperty(TRACKED_KEY) != null) {
+            return;
+        }
+        jc.putClientProperty(TRACKED_KEY, Boolean.TRUE);
+        jc.addContainerListener(follower);
+
+        Role role = roleOf(jc);
+        if (role != null && jc.getClientProperty(EXCLUDED_KEY) == null) {
+            Entry entry = new Entry(jc, role);
+            entry.index = entries.size();
+            entries.add(entry);
+            jc.putClientProperty(ENTRY_KEY, entry);
+        }
+        for (Component child : jc.getComponents()) {
+            track(child);
+        }
+    }
+
+    /**
+     * Forgets the component and everything below it
+     */
+    public void untrack(Component component) {
+        if (!(component instanceof JComponent)) {
+            return;
+        }
+        JComponent jc = (JComponent) component;
+        if (jc.getClientProperty(TRACKED_KEY) == null) {
+            return;
+        }
+        jc.putClientProperty(TRACKED_KEY, null);
+        jc.removeContainerListener(follower);
+
+        Object entry = jc.getClientProperty(ENTRY_KEY);
+        if (entry != null) {
+            remove((Entry) entry);
+            jc.putClientProperty(ENTRY_KEY, null);
+        }
+        for (Component child : jc.getComponents()) {
+            untrack(child);
+        }
+    }
+
+    /**
+     * Leaves the component's colors alone; call before it is tracked
+     */
+    public void exclude(JComponent component) {
+        component.putClientProperty(EXCLUDED_KEY, Boolean.TRUE);
+    }
+
+    /**
+     * Recolors every registered component
+     */
+    public void apply(Palette palette) {
+        for (int i = 0, n = entries.size(); i < n; i++) {
+            Entry entry = entries.get(i);
+            JComponent c = entry.component;
+            switch (entry.role) {
+                case LABEL:
+                    c.setForeground(palette.text);
+                    break;
+                case BUTTON:
+                    c.setBackground(palette.surface);
+                    c.setForeground(palette.text);
+                    break;
+                case RADIO:
+                    c.setForeground(palette.text);
+                    c.setBackground(palette.card);
+                    break;
+                case PANEL:
+                    c.setBackground(palette.background);
+                    break;
+            }
+        }
+    }
+
+    public int getRegisteredCount() {
+        return entries.size();
+    }
+
+    private static Role roleOf(JComponent component) {
+        if (component instanceof JLabel) {
+            return Role.LABEL;
+        } else if (component instanceof JButton) {
+            return Role.BUTTON;
+        } else if (component instanceof JRadioButton) {
+            return Role.RADIO;
+        } else if (component instanceof JPanel) {
+            return Role.PANEL;
+        }
+        return null;
+    }
+
+    /**
+     * Removes an entry in constant time by moving the last entry into its slot
+     */
+    private void remove(Entry entry) {
+        Entry last = entries.remove(entries.size() - 1);
+        if (last != entry) {
+            last.index = entry.index;
+            entries.set(entry.index, last);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.Timer;
+
+/**
+ * One clock for all UI timing: countdowns, feedback delays and animations.
+ *
+ * Tasks are kept against monotonic System.nanoTime deadlines and run on the
+ * Event Dispatch Thread by a single Swing timer, which is re-armed for the
+ * earliest deadline after every tick and stops when nothing is scheduled.
+ * A late tick therefore never shifts later deadlines, and an idle UI does
+ * not wake up at all. All methods must be called on the EDT.
+ */
+public class TickScheduler {
+    private static final long FRAME_NANOS = 16_000_000L; // ~60 fps for animations
+
+    /**
+     * Receives animation progress from 0 (exclusive) to 1 (inclusive, final frame)
+     */
+    public interface FrameListener {
+        void onFrame(float progress);
+    }
+
+    /**
+     * A scheduled task or animation
+     */
+    public final class Handle {
+        private final long startNanos;
+        private final long deadlineNanos;
+        private final Runnable action;
+        private final FrameListener frames;
+        private boolean cancelled = false;
+
+        private Handle(long startNanos, long deadlineNanos, Runnable action, FrameListener frames) {
+            this.startNanos = startNanos;
+            this.deadlineNanos = deadlineNanos;
+            this.action = action;
+            this.frames = frames;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            tasks.remove(this);
+            arm();
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final List<Handle> tasks = new ArrayList<>();
+    private final Timer timer;
+
+    public TickScheduler() {
+        timer = new Timer(0, e -> tick());
+        timer.setRepeats(false);
+    }
+
+    /**
+     * Runs the action once, delayMs from now
+     */
+    public Handle schedule(long delayMs, Runnable action) {
+        long now = System.nanoTime();
+        return add(new Handle(now, now + delayMs * 1_000_000L, action, null));
+    }
+
+    /**
+     * Runs the action once at the given System.nanoTime deadline
+     */
+    public Handle scheduleAt(long deadlineNanos, Runnable action) {
+        return add(new Handle(System.nanoTime(), deadlineNanos, action, null));
+    }
+
+    /**
+     * Calls the listener every frame for durationMs, ending with a progress of exactly 1
+     */
+    public Handle animate(long durationMs, FrameListener frames) {
+        long now = System.nanoTime();
+        return add(new Handle(now, now + durationMs * 1_000_000L, null, frames));
+    }
+
+    /**
+     * Cancels everything
+     */
+    public void cancelAll() {
+        for (Handle handle : tasks) {
+            handle.cancelled = true;
+        }
+        tasks.clear();
+        timer.stop();
+    }
+
+    public int getScheduledCount() {
+        return tasks.size();
+    }
+
+    private Handle add(Handle handle) {
+        tasks.add(handle);
+        arm();
+        return handle;
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        // Tasks may schedule or cancel others while running
+        for (Handle handle : new ArrayList<>(tasks)) {
+            if (handle.cancelled) {
+                continue;
+            }
+            if (handle.frames != null) {
+                boolean done = now >= handle.deadlineNanos;
+                float progress = done ? 1f
+                    : (float) (now - handle.startNanos) / (handle.deadlineNanos - handle.startNanos);
+                if (done) {
+                    tasks.remove(handle);
+                }
+                handle.frames.onFrame(progress);
+            } else if (now >= handle.deadlineNanos) {
+                tasks.remove(handle);
+                handle.action.run();
+            }
+        }
+        arm();
+    }
+
+    /**
+     * Points the Swing timer at the earliest deadline, or stops it when idle
+     */
+    private void arm() {
+        if (tasks.isEmpty()) {
+            timer.stop();
+            return;
+        }
+        long now = System.nanoTime();
+        long next = Long.MAX_VALUE;
+        for (Handle handle : tasks) {
+            long due = handle.frames != null ? Math.min(handle.deadlineNanos, now + FRAME_NANOS) : handle.deadlineNanos;
+            next = Math.min(next, due);
+        }
+        int delayMs = (int) Math.max(0, (next - now + 999_999) / 1_000_000);
+        timer.stop();
+        timer.setInitialDelay(delayMs);
+        timer.start();
+    }
+}
@@ -0,0 +1,88 @@
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Row parsing, option shuffling and scoring, driven by quizbench.HotPathBenchmark.
+ * Rows come from InMemoryQuestionDb, so results reflect our code rather than MySQL.
+ */
+public class HotPathWorkload implements quizbench.Workloads.HotPath {
+    private static final int PARSE_BATCH_ROWS = 1_000;
+
+    private final InMemoryQuestionDb parseDb = new InMemoryQuestionDb(PARSE_BATCH_ROWS);
+    private ResultSet rows = parseDb.rows(1, PARSE_BATCH_ROWS);
+    private final Question template =
+        new Question(1, "Which value is 1 mod 97?", new String[] {"1", "2", "3", "4"}, "1");
+    private final Question sixOptions =
+        new Question(2, "Which value is 2 mod 97?", new String[] {"1", "2", "3", "4", "5", "6"}, "2");
+    private final QuestionAttempt attempt = QuestionAttempt.inOrder(template);
+    private int option = 0;
+
+    @Override
+    public Object parseRow() throws SQLException {
+        return DatabaseConnector.readQuestion(nextRow());
+    }
+
+    @Override
+    public Object parseAndInternRow() throws SQLException {
+        return DatabaseConnector.createQuestionFromResultSet(nextRow());
+    }
+
+    @Override
+    public Object shuffleLegacyBoxed() {
+        return legacyShuffle(template);
+    }
+
+    @Override
+    public Object shuffled() {
+        return QuestionAttempt.shuffled(template, ThreadLocalRandom.current());
+    }
+
+    @Override
+    public Object shuffledSixOptions() {
+        return QuestionAttempt.shuffled(sixOptions, ThreadLocalRandom.current());
+    }
+
+    @Override
+    public boolean selectAndScore() {
+        attempt.select(option++ & 3);
+        return attempt.isCorrect();
+    }
+
+    private ResultSet nextRow() throws SQLException {
+        if (!rows.next()) {
+            rows = parseDb.rows(1, PARSE_BATCH_ROWS);
+            rows.next();
+        }
+        return rows;
+    }
+
+    /**
+     * The original QuizGUI.shuffleOptions: boxed index list, Collections.shuffle,
+     * a copied option array and a text scan for the correct answer
+     */
+    private static String[] legacyShuffle(Question question) {
+        String[] options = question.getOptions();
+        String correctAnswer = question.getCorrectAnswer();
+
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < options.length; i++) {
+            indices.add(i);
+        }
+        Collections.shuffle(indices);
+
+        String[] shuffledOptions = new String[options.length];
+        for (int i = 0; i < indices.size(); i++) {
+            shuffledOptions[i] = options[indices.get(i)];
+        }
+        for (int i = 0; i < shuffledOptions.length; i++) {
+            if (shuffledOptions[i].equals(correctAnswer)) {
+                return shuffledOptions;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,335 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-memory stand-in for the questions table, for benchmarks that should
+ * measure our code rather than MySQL.
+ *
+ * Rows are synthesized from their id on demand, so a bank of ten million
+ * questions costs no memory. Only the statements issued by QuestionSampler
+ * and CategoryIndex and the columns read by DatabaseConnector are
+ * understood, including their category, difficulty and excluded id filters.
+ * Row {@code id} is in category {@code CATEGORIES[id % 5]} with difficulty
+ * {@code 1 + (id / 5) % 3}.
+ */
+public class InMemoryQuestionDb {
+    static final String[] CATEGORIES = {"general", "geography", "history", "science", "technology"};
+    private static final int DIFFICULTY_LEVELS = 3;
+
+    private static final int MAX_RANDOM_DRAWS_PER_ROW = 64;
+
+    private final int rowCount;
+
+    /**
+     * The {@code category IN}, {@code difficulty BETWEEN} and {@code id NOT IN}
+     * conditions of a statement, with their parameters
+     */
+    private static final class Filter {
+        private Set<Object> categories = null;
+        private int minDifficulty = Integer.MIN_VALUE;
+        private int maxDifficulty = Integer.MAX_VALUE;
+        private Set<Object> excludedIds = null;
+        private int parameterCount = 0;
+
+        /**
+         * Reads the conditions in the order QuestionSampler writes them, from params[offset]
+         */
+        static Filter parse(String sql, List<Object> params, int offset) {
+            Filter filter = new Filter();
+            int next = offset;
+            int categoryCount = placeholdersAfter(sql, "category IN (");
+            if (categoryCount > 0) {
+                filter.categories = new HashSet<>(params.subList(next, next + categoryCount));
+                next += categoryCount;
+            }
+            if (sql.contains("difficulty BETWEEN ? AND ?")) {
+                filter.minDifficulty = ((Number) params.get(next++)).intValue();
+                filter.maxDifficulty = ((Number) params.get(next++)).intValue();
+            }
+            int excludedCount = placeholdersAfter(sql, "id NOT IN (");
+            if (excludedCount > 0) {
+                filter.excludedIds = new HashSet<>(params.subList(next, next + excludedCount));
+                next += excludedCount;
+            }
+            filter.parameterCount = next - offset;
+            return filter;
+        }
+
+        boolean isEmpty() {
+            return categories == null && excludedIds == null
+                && minDifficulty == Integer.MIN_VALUE && maxDifficulty == Integer.MAX_VALUE;
+        }
+
+        boolean matches(int id) {
+            int difficulty = difficultyOf(id);
+            return (categories == null || categories.contains(CATEGORIES[id % CATEGORIES.length]))
+                && difficulty >= minDifficulty && difficulty <= maxDifficulty
+                && (excludedIds == null || !excludedIds.contains(id));
+        }
+    }
+
+    public InMemoryQuestionDb(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns a connection whose statements read from this bank
+     */
+    public Connection connect() {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return prepare((String) args[0]);
+                case "close":
+                case "setAutoCommit":
+                    return null;
+                case "isClosed":
+                    return false;
+                case "isValid":
+                case "getAutoCommit":
+                    return true;
+                default:
+                    return unsupported(method);
+            }
+        });
+    }
+
+    /**
+     * Returns a cursor over the rows with ids from, from + 1, ... (wrapping at the end of the bank)
+     */
+    public ResultSet rows(int fromId, int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = (fromId - 1 + i) % rowCount + 1;
+        }
+        return cursor(ids);
+    }
+
+    private PreparedStatement prepare(String sql) {
+        Map<Integer, Object> params = new TreeMap<>();
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setObject":
+                case "setInt":
+                case "setString":
+                    params.put((Integer) args[0], args[1]);
+                    return null;
+                case "executeQuery":
+                    return execute(sql, new ArrayList<>(params.values()));
+                case "setFetchSize":
+                case "close":
+                    return null;
+                default:
+                    return unsupported(method);
+            }
+        });
+    }
+
+    private ResultSet execute(String sql, List<Object> params) throws SQLException {
+        if (sql.contains("MIN(id)")) {
+            return singleRow(new int[] {rowCount == 0 ? 0 : 1, rowCount, rowCount});
+        }
+        if (sql.startsWith("SELECT id FROM")) {
+            return idCursor(Filter.parse(sql, params, 0));
+        }
+        if (sql.startsWith("SELECT category, difficulty, id FROM")) {
+            return categoryCursor();
+        }
+        if (sql.contains("WHERE id IN")) {
+            // The IN list comes first, then the filter parameters
+            int placeholders = placeholdersAfter(sql, "WHERE id IN (");
+            Filter filter = Filter.parse(sql, params, placeholders);
+            int[] ids = new int[placeholders];
+            int found = 0;
+            for (Object param : params.subList(0, placeholders)) {
+                if (param instanceof Integer) {
+                    int id = (Integer) param;
+                    if (id >= 1 && id <= rowCount && filter.matches(id)) {
+                        ids[found++] = id;
+                    }
+                }
+            }
+            return cursor(Arrays.copyOf(ids, found));
+        }
+        if (sql.contains("ORDER BY RAND()")) {
+            Filter filter = Filter.parse(sql, params, 0);
+            int limit = Math.min(rowCount, ((Number) params.get(filter.parameterCount)).intValue());
+            int[] ids = new int[limit];
+            int found = 0;
+            // Random draws that pass the filter, with a bound in case few or no rows do
+            for (long draws = 0; found < limit && draws < (long) limit * MAX_RANDOM_DRAWS_PER_ROW; draws++) {
+                int id = 1 + ThreadLocalRandom.current().nextInt(rowCount);
+                if (filter.isEmpty() || filter.matches(id)) {
+                    ids[found++] = id;
+                }
+            }
+            return cursor(Arrays.copyOf(ids, found));
+        }
+        throw new SQLFeatureNotSupportedException("Statement not supported by InMemoryQuestionDb: " + sql);
+    }
+
+    private ResultSet singleRow(int[] values) {
+        boolean[] read = {false};
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    boolean hasRow = !read[0];
+                    read[0] = true;
+                    return hasRow;
+                case "getInt":
+                    return values[(Integer) args[0] - 1];
+                case "close":
+                    return null;
+                default:
+                    return unsupported(method);
+            }
+        });
+    }
+
+    /**
+     * Streams every matching id in the bank, like a forward-only scan of the primary key
+     */
+    private ResultSet idCursor(Filter filter) {
+        int[] current = {0};
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    while (++current[0] <= rowCount) {
+                        if (filter.matches(current[0])) {
+                            return true;
+                        }
+                    }
+                    return false;
+                case "getInt":
+                    return current[0];
+                case "close":
+                    return null;
+                default:
+                    return unsupported(method);
+            }
+        });
+    }
+
+    /**
+     * Streams (category, difficulty, id) ordered by all three, like a scan of the composite index
+     */
+    private ResultSet categoryCursor() {
+        int categories = CATEGORIES.length;
+        // Ids of category c and difficulty d are categories * m + c for m = d - 1, d + 2, ...
+        int[] state = {0, 1, -DIFFICULTY_LEVELS, 0}; // category, difficulty, m, current id
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    while (state[0] < categories) {
+                        state[2] = state[2] < 0 ? state[1] - 1 : state[2] + DIFFICULTY_LEVELS;
+                        long id = (long) categories * state[2] + state[0];
+                        if (id > rowCount) {
+                            state[2] = -DIFFICULTY_LEVELS;
+                            if (++state[1] > DIFFICULTY_LEVELS) {
+                                state[1] = 1;
+                                state[0]++;
+                            }
+                        } else if (id >= 1) {
+                            state[3] = (int) id;
+                            return true;
+                        }
+                    }
+                    return false;
+                case "getString":
+                    return CATEGORIES[state[0]];
+                case "getInt":
+                    return (Integer) args[0] == 2 ? state[1] : state[3];
+                case "close":
+                    return null;
+                default:
+                    return unsupported(method);
+            }
+        });
+    }
+
+    private ResultSet cursor(int[] ids) {
+        int[] position = {-1};
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    return ++position[0] < ids.length;
+                case "getInt":
+                    return ids[position[0]];
+                case "getString":
+                    return column(ids[position[0]], (String) args[0]);
+                case "close":
+                    return null;
+                default:
+                    return unsupported(method);
+            }
+        });
+    }
+
+    /**
+     * Synthesizes a column value; a new String each call, as a driver would decode it
+     */
+    private static String column(int id, String name) throws SQLException {
+        int answer = id % 97;
+        switch (name) {
+            case "question":
+                return "Synthetic question #" + id + ": which value is " + id + " mod 97?";
+            case "option1":
+                return String.valueOf(answer);
+            case "option2":
+                return String.valueOf(answer + 1);
+            case "option3":
+                return String.valueOf(answer + 2);
+            case "option4":
+                return String.valueOf(answer + 3);
+            case "correct_answer":
+                return String.valueOf(answer);
+            case "category":
+                return CATEGORIES[id % CATEGORIES.length];
+            default:
+                throw new SQLException("Unknown column: " + name);
+        }
+    }
+
+    private static int difficultyOf(int id) {
+        return 1 + (id / CATEGORIES.length) % DIFFICULTY_LEVELS;
+    }
+
+    /**
+     * Number of ? placeholders in the parenthesis that follows marker, or 0 when sql lacks it
+     */
+    private static int placeholdersAfter(String sql, String marker) {
+        int start = sql.indexOf(marker);
+        if (start < 0) {
+            return 0;
+        }
+        String list = sql.substring(start, sql.indexOf(')', start));
+        return list.length() - list.replace("?", "").length();
+    }
+
+    private static Object unsupported(Method method) throws SQLException {
+        throw new SQLFeatureNotSupportedException(method.getName() + " is not supported by InMemoryQuestionDb");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InMemoryQuestionDb.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+}
@@ -0,0 +1,39 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Indexed quiz sampling against an InMemoryQuestionDb bank, driven by
+ * quizbench.QuizSamplingBenchmark. The category index is loaded when the
+ * bank is opened, so the filtered benchmark measures drawing ids from it and
+ * fetching their rows, not the one-off index scan.
+ */
+public class SamplingWorkload implements quizbench.Workloads.Sampling {
+    private static final int QUIZ_SIZE = 10;
+
+    private Connection conn;
+    private QuestionSampler sampler;
+    private final QuizSpec spec = new QuizSpec(QUIZ_SIZE);
+    private final QuizSpec categorySpec =
+        new QuizSpec(QUIZ_SIZE, Collections.singleton(InMemoryQuestionDb.CATEGORIES[0]), null, 2, 3);
+
+    @Override
+    public void open(int bankSize) throws SQLException {
+        Logger.getLogger("").setLevel(Level.WARNING); // The sampler logs every quiz at INFO
+        conn = new InMemoryQuestionDb(bankSize).connect();
+        sampler = new QuestionSampler("questions");
+        sampler.getCategoryCounts(conn);
+    }
+
+    @Override
+    public Object sampleIndexed() throws SQLException {
+        return sampler.sample(conn, spec, QuestionSampler.Mode.INDEXED, new QuestionSampler.TransferStats());
+    }
+
+    @Override
+    public Object sampleCategoryAndDifficulty() throws SQLException {
+        return sampler.sample(conn, categorySpec, QuestionSampler.Mode.INDEXED, new QuestionSampler.TransferStats());
+    }
+}
@@ -0,0 +1,64 @@
+package quizbench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-question hot paths: row parsing with and without interning, option
+ * shuffling against the original boxed version, and scoring. Run with
+ * {@code -prof gc} for bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HotPathBenchmark {
+    private Workloads.HotPath workload;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        workload = Workloads.load(Workloads.HotPath.class, "HotPathWorkload");
+    }
+
+    @Benchmark
+    public Object parseRow() throws Exception {
+        return workload.parseRow();
+    }
+
+    @Benchmark
+    public Object parseAndInternRow() throws Exception {
+        return workload.parseAndInternRow();
+    }
+
+    @Benchmark
+    public Object shuffleLegacyBoxed() {
+        return workload.shuffleLegacyBoxed();
+    }
+
+    @Benchmark
+    public Object shuffled() {
+        return workload.shuffled();
+    }
+
+    @Benchmark
+    public Object shuffledSixOptions() {
+        return workload.shuffledSixOptions();
+    }
+
+    @Benchmark
+    public boolean selectAndScore() {
+        return workload.selectAndScore();
+    }
+}
@@ -0,0 +1,48 @@
+package quizbench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Indexed quiz sampling against in-memory banks from a thousand to ten
+ * million rows, unfiltered and with a category and difficulty filter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx1g")
+public class QuizSamplingBenchmark {
+    @Param({"1000", "100000", "10000000"})
+    public int bankSize;
+
+    private Workloads.Sampling workload;
+
+    @Setup
+    public void setUp() throws Exception {
+        workload = Workloads.load(Workloads.Sampling.class, "SamplingWorkload");
+        workload.open(bankSize);
+    }
+
+    @Benchmark
+    public Object sampleIndexed() throws Exception {
+        return workload.sampleIndexed();
+    }
+
+    @Benchmark
+    public Object sampleCategoryAndDifficulty() throws Exception {
+        return workload.sampleCategoryAndDifficulty();
+    }
+}
@@ -0,0 +1,48 @@
+package quizbench;
+
+/**
+ * Bridge between the JMH benchmarks and the application.
+ *
+ * JMH only accepts benchmark classes in a named package, and a named package
+ * cannot refer to the application's classes in the default package. Each
+ * benchmark therefore drives a workload through one of the interfaces below;
+ * the implementations live next to the application classes, in the default
+ * package, and are loaded by name. Every call site sees a single
+ * implementation, so the JIT inlines the interface call.
+ */
+public final class Workloads {
+    private Workloads() {
+    }
+
+    /**
+     * Per-question hot paths, implemented by HotPathWorkload
+     */
+    public interface HotPath {
+        Object parseRow() throws Exception;
+
+        Object parseAndInternRow() throws Exception;
+
+        Object shuffleLegacyBoxed();
+
+        Object shuffled();
+
+        Object shuffledSixOptions();
+
+        boolean selectAndScore();
+    }
+
+    /**
+     * Quiz sampling against an in-memory bank, implemented by SamplingWorkload
+     */
+    public interface Sampling {
+        void open(int bankSize) throws Exception;
+
+        Object sampleIndexed() throws Exception;
+
+        Object sampleCategoryAndDifficulty() throws Exception;
+    }
+
+    static <T> T load(Class<T> type, String className) throws ReflectiveOperationException {
+        return type.cast(Class.forName(className).getDeclaredConstructor().newInstance());
+    }
+}
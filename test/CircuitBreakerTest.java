@@ -0,0 +1,87 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * State changes of the circuit breaker
+ */
+public class CircuitBreakerTest {
+    private static final long OPEN_MS = 1;
+
+    private final List<String> changes = new ArrayList<>();
+    private final CircuitBreaker breaker =
+        new CircuitBreaker("test", 2, OPEN_MS, OPEN_MS, (from, to) -> changes.add(from + "->" + to));
+
+    private void trip() {
+        assertTrue(breaker.tryAcquire());
+        breaker.recordFailure();
+        assertTrue(breaker.tryAcquire());
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private void waitOutOpenPeriod() throws InterruptedException {
+        Thread.sleep(OPEN_MS + 5);
+    }
+
+    @Test
+    public void tripsAtTheThresholdAndRejectsWhileOpen() {
+        CircuitBreaker slow = new CircuitBreaker("slow", 2, 60_000, 60_000, null);
+        assertTrue(slow.tryAcquire());
+        slow.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, slow.getState());
+        assertTrue(slow.tryAcquire());
+        slow.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, slow.getState());
+        assertFalse(slow.tryAcquire());
+        assertEquals(1, slow.getRejectedCount());
+        assertTrue(slow.getRetryInMillis() >= 30_000);
+    }
+
+    @Test
+    public void lateSuccessDoesNotCloseAnOpenBreaker() {
+        assertTrue(breaker.tryAcquire()); // Let through before the trip, finishes after it
+        trip();
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getConsecutiveFailures());
+    }
+
+    @Test
+    public void successfulTrialClosesTheBreaker() throws InterruptedException {
+        trip();
+        waitOutOpenPeriod();
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire()); // One trial at a time
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals("[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->CLOSED]", changes.toString());
+    }
+
+    @Test
+    public void releasedTrialReopensAndLetsTheNextTrialThrough() throws InterruptedException {
+        trip();
+        waitOutOpenPeriod();
+        assertTrue(breaker.tryAcquire());
+        breaker.release();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals("[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->OPEN]", changes.toString());
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals(1, breaker.getTripCount());
+    }
+
+    @Test
+    public void releaseOutsideATrialChangesNothing() {
+        breaker.release();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(changes.isEmpty());
+    }
+}
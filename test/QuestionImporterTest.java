@@ -0,0 +1,89 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Parsing of the CSV and JSON import formats
+ */
+public class QuestionImporterTest {
+
+    private static QuestionImporter.RecordReader csv(String text) {
+        return new QuestionImporter.CsvRecordReader(new BufferedReader(new StringReader(text)));
+    }
+
+    private static QuestionImporter.RecordReader json(String text) {
+        return new QuestionImporter.JsonRecordReader(new BufferedReader(new StringReader(text)));
+    }
+
+    @Test
+    public void csvReadsPlainFieldsByHeader() throws IOException {
+        QuestionImporter.RecordReader reader = csv("Question,option1,correct_answer\r\nWhat is 2+2?,4,4\r\n");
+        Map<String, Object> record = reader.next();
+        assertEquals("What is 2+2?", record.get("question"));
+        assertEquals("4", record.get("option1"));
+        assertEquals("4", record.get("correct_answer"));
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void csvQuotedFieldsKeepCommasQuotesAndLineBreaks() throws IOException {
+        QuestionImporter.RecordReader reader = csv(
+            "question,option1,option2\n" +
+            "\"Which, of these?\",\"say \"\"hi\"\"\",\"two\nlines\"\n");
+        Map<String, Object> record = reader.next();
+        assertEquals("Which, of these?", record.get("question"));
+        assertEquals("say \"hi\"", record.get("option1"));
+        assertEquals("two\nlines", record.get("option2"));
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void csvSkipsByteOrderMarkBlankLinesAndReadsALastLineWithoutBreak() throws IOException {
+        QuestionImporter.RecordReader reader = csv("\uFEFFquestion,option1\n\nfirst,a\n\nsecond,\"\"");
+        assertEquals("first", reader.next().get("question"));
+        Map<String, Object> last = reader.next();
+        assertEquals("second", last.get("question"));
+        assertEquals("", last.get("option1"));
+        assertNull(reader.next());
+    }
+
+    @Test(expected = IOException.class)
+    public void csvRejectsAnUnterminatedQuote() throws IOException {
+        csv("question\n\"never closed\n").next();
+    }
+
+    @Test
+    public void jsonDecodesEscapes() throws IOException {
+        QuestionImporter.RecordReader reader = json(
+            "[{\"Question\": \"a \\\"quoted\\\" \\\\ path\\/x\\n\\tend\", \"category\": \"caf\\u00e9\"}]");
+        Map<String, Object> record = reader.next();
+        assertEquals("a \"quoted\" \\ path/x\n\tend", record.get("question"));
+        assertEquals("café", record.get("category"));
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void jsonReadsArraysLiteralsAndNewlineDelimitedObjects() throws IOException {
+        QuestionImporter.RecordReader reader = json(
+            "{\"options\": [\"a\", \"b\"], \"difficulty\": 3, \"category\": null}\n" +
+            "{\"question\": \"next\"}\n");
+        Map<String, Object> first = reader.next();
+        assertEquals(Arrays.asList("a", "b"), first.get("options"));
+        assertEquals("3", first.get("difficulty"));
+        assertNull(first.get("category"));
+        assertEquals("next", reader.next().get("question"));
+        assertNull(reader.next());
+    }
+
+    @Test(expected = IOException.class)
+    public void jsonRejectsAnUnterminatedString() throws IOException {
+        json("{\"question\": \"no end").next();
+    }
+}
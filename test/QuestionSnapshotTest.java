@@ -0,0 +1,107 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Writing a snapshot and reading it back through its mapping
+ */
+public class QuestionSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void questionsAndAttemptsRoundTrip() throws IOException {
+        QuestionSnapshot.Writer writer = new QuestionSnapshot.Writer();
+        writer.addQuestion(new Question(3, "Capital of France?", new String[] {"Paris", "Lyon", "Nice", "Lille"}, "Paris"),
+            "geography", 1);
+        writer.addQuestion(new Question(9, "Pick the primes", new String[] {"2", "4", "5"}, 0b101, true), "math", 3);
+        writer.addQuestion(new Question(12, "Naïve “quotes” ✓", new String[] {"Paris", "Lyon"}, "Lyon"), "", 2);
+        writer.addAttempt(new AttemptStore.Attempt("ana", "geography", 7, 10, 61_000L, 1_700_000_000_000L));
+        writer.addAttempt(new AttemptStore.Attempt("bo", AttemptStore.ALL_CATEGORIES, 0, 10, 5_000L, 0L));
+        writer.setWatermark(12, 3);
+
+        Path file = folder.getRoot().toPath().resolve("bank.qsnap");
+        long bytes = writer.writeTo(file);
+        assertEquals(Files.size(file), bytes);
+        assertFalse(Files.exists(file.resolveSibling("bank.qsnap.tmp")));
+
+        QuestionSnapshot.Reader reader = QuestionSnapshot.open(file);
+        assertEquals(3, reader.getQuestionCount());
+        assertEquals(12, reader.getMaxId());
+        assertEquals(3, reader.getRowCount());
+        assertTrue(reader.getCreatedAt() > 0);
+
+        Question first = reader.question(0);
+        assertEquals(3, reader.id(0));
+        assertEquals(3, first.getId());
+        assertEquals("Capital of France?", first.getQuestionText());
+        assertArrayEquals(new String[] {"Paris", "Lyon", "Nice", "Lille"}, first.getOptions());
+        assertEquals("Paris", first.getCorrectAnswer());
+        assertEquals("geography", reader.category(0));
+        assertEquals(1, reader.difficulty(0));
+
+        Question multi = reader.question(1);
+        assertTrue(multi.isMultiAnswer());
+        assertEquals(0b101, multi.getCorrectMask());
+        assertEquals(3, multi.getOptionCount());
+        assertEquals("math", reader.category(1));
+        assertEquals(3, reader.difficulty(1));
+
+        Question unicode = reader.question(2);
+        assertEquals("Naïve “quotes” ✓", unicode.getQuestionText());
+        assertEquals("Lyon", unicode.getCorrectAnswer());
+        assertEquals("", reader.category(2));
+
+        assertEquals(2, reader.getAttemptCount());
+        AttemptStore.Attempt attempt = reader.attempt(0);
+        assertEquals("ana", attempt.getUser());
+        assertEquals("geography", attempt.getCategory());
+        assertEquals(7, attempt.getScore());
+        assertEquals(10, attempt.getTotal());
+        assertEquals(61_000L, attempt.getDurationMs());
+        assertEquals(1_700_000_000_000L, attempt.getFinishedAt());
+        assertEquals(0L, reader.attempt(1).getFinishedAt());
+    }
+
+    @Test
+    public void snapshotWithoutAttemptsRoundTrips() throws IOException {
+        QuestionSnapshot.Writer writer = new QuestionSnapshot.Writer();
+        writer.addQuestion(new Question(1, "2 + 2?", new String[] {"3", "4"}, "4"), "math", 1);
+        writer.setWatermark(1, 1);
+
+        Path file = folder.getRoot().toPath().resolve("questions.qsnap");
+        writer.writeTo(file);
+
+        QuestionSnapshot.Reader reader = QuestionSnapshot.open(file);
+        assertEquals(1, reader.getQuestionCount());
+        assertEquals(0, reader.getAttemptCount());
+        assertEquals("4", reader.question(0).getCorrectAnswer());
+    }
+
+    @Test
+    public void emptySnapshotRoundTrips() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("empty.qsnap");
+        new QuestionSnapshot.Writer().writeTo(file);
+
+        QuestionSnapshot.Reader reader = QuestionSnapshot.open(file);
+        assertEquals(0, reader.getQuestionCount());
+        assertEquals(0, reader.getAttemptCount());
+        assertEquals(0, reader.getMaxId());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAFileThatIsNotASnapshot() throws IOException {
+        Path file = folder.newFile("bank.csv").toPath();
+        Files.write(file, "question,option1\n".getBytes("UTF-8"));
+        QuestionSnapshot.open(file);
+    }
+}
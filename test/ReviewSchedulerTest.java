@@ -0,0 +1,75 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * SM-2 scheduling of a single question
+ */
+public class ReviewSchedulerTest {
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void recalledQuestionsGrowTheirIntervalByTheEasiness() {
+        ReviewScheduler.ReviewState state = new ReviewScheduler.ReviewState(7);
+
+        state.review(5, 0);
+        assertEquals(1, state.repetitions);
+        assertEquals(1, state.intervalDays);
+        assertEquals(2.6, state.easiness, EPSILON);
+
+        state.review(5, 0);
+        assertEquals(2, state.repetitions);
+        assertEquals(6, state.intervalDays);
+        assertEquals(2.7, state.easiness, EPSILON);
+
+        state.review(4, 0);
+        assertEquals(3, state.repetitions);
+        assertEquals(16, state.intervalDays); // round(6 * 2.7)
+        assertEquals(2.7, state.easiness, EPSILON);
+
+        state.review(3, 0);
+        assertEquals(4, state.repetitions);
+        assertEquals(43, state.intervalDays); // round(16 * 2.7)
+        assertEquals(2.56, state.easiness, EPSILON);
+        assertEquals(0, state.lapses);
+    }
+
+    @Test
+    public void lapseRestartsTheSchedule() {
+        ReviewScheduler.ReviewState state = new ReviewScheduler.ReviewState(7);
+        state.review(5, 0);
+        state.review(5, 0);
+
+        state.review(1, 0);
+        assertEquals(0, state.repetitions);
+        assertEquals(1, state.intervalDays);
+        assertEquals(1, state.lapses);
+        assertEquals(2.16, state.easiness, EPSILON);
+
+        state.review(4, 0);
+        assertEquals(1, state.repetitions);
+        assertEquals(1, state.intervalDays);
+    }
+
+    @Test
+    public void easinessNeverDropsBelowTheMinimum() {
+        ReviewScheduler.ReviewState state = new ReviewScheduler.ReviewState(7);
+        for (int i = 0; i < 5; i++) {
+            state.review(0, 0);
+        }
+        assertEquals(1.3, state.easiness, EPSILON);
+        assertEquals(5, state.lapses);
+    }
+
+    @Test
+    public void dueTimeFollowsTheInterval() {
+        ReviewScheduler.ReviewState state = new ReviewScheduler.ReviewState(7);
+        long now = 1_000_000L;
+        state.review(5, now);
+        assertEquals(now + DAY_MS, state.dueAt);
+        state.review(5, now);
+        assertEquals(now + 6 * DAY_MS, state.dueAt);
+        assertEquals(2, state.version);
+    }
+}